@@ -1,35 +1,104 @@
 package ru.yandex.practicum.filmorate.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 
 import lombok.extern.slf4j.Slf4j;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import ru.yandex.practicum.filmorate.model.DirectorSortBy;
 import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmImportResult;
 import ru.yandex.practicum.filmorate.model.SearchBy;
 import ru.yandex.practicum.filmorate.service.FilmService;
 
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @Slf4j
 @RequestMapping("/films")
 public class FilmController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+    private static final String NDJSON = "application/x-ndjson";
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+    private static final int EXPORT_FLUSH_EVERY = 500;
+
     private final FilmService filmService;
+    private final ObjectMapper objectMapper;
 
     @Autowired
-    public FilmController(FilmService filmService) {
+    public FilmController(FilmService filmService, ObjectMapper objectMapper) {
         this.filmService = filmService;
+        this.objectMapper = objectMapper;
     }
 
     @GetMapping
-    public List<Film> findAll() {
-        log.info("Получен запрос на получение всех фильмов");
-        return filmService.findAll();
+    public ResponseEntity<List<Film>> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех фильмов");
+            return ResponseEntity.ok(filmService.findAll());
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы фильмов после id {}, размер {}", after, pageSize);
+
+        List<Film> films = filmService.findPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (films.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(films.getLast().getId()));
+        }
+
+        return response.body(films);
+    }
+
+    @GetMapping("/export")
+    public ResponseEntity<StreamingResponseBody> exportFilms() {
+        log.info("Получен запрос на выгрузку каталога фильмов");
+
+        StreamingResponseBody body = outputStream -> {
+            BufferedOutputStream out = new BufferedOutputStream(outputStream, EXPORT_BUFFER_SIZE);
+            int[] written = {0};
+
+            filmService.forEachFilm(film -> {
+                try {
+                    out.write(objectMapper.writeValueAsBytes(film));
+                    out.write('\n');
+                    if (++written[0] % EXPORT_FLUSH_EVERY == 0) {
+                        out.flush();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            out.flush();
+            log.info("Выгрузка каталога завершена: {} фильмов", written[0]);
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(NDJSON))
+                .body(body);
+    }
+
+    @GetMapping("/cache/stats")
+    public Map<String, Long> getCacheStats() {
+        log.info("Получен запрос на статистику кэша фильмов");
+        return filmService.getCacheStats();
     }
 
     @GetMapping("/{id}")
@@ -38,12 +107,30 @@ public class FilmController {
         return filmService.findById(id);
     }
 
+    @GetMapping("/{id}/similar")
+    public List<Film> getSimilarFilms(@PathVariable Long id, @RequestParam(defaultValue = "10") int count) {
+        log.info("Получен запрос на получение {} фильмов, похожих на фильм {}", count, id);
+        return filmService.getSimilarFilms(id, count);
+    }
+
     @PostMapping
     public Film create(@Valid @RequestBody Film film) {
         log.info("Получен запрос на создание фильма: {}", film);
         return filmService.create(film);
     }
 
+    @PostMapping(value = "/import", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public FilmImportResult importFilmArray(InputStream body) {
+        log.info("Получен запрос на импорт массива фильмов");
+        return filmService.importFilmArray(body);
+    }
+
+    @PostMapping(value = "/import", consumes = NDJSON)
+    public FilmImportResult importFilms(InputStream body) {
+        log.info("Получен запрос на потоковый импорт фильмов");
+        return filmService.importFilmLines(body);
+    }
+
     @PutMapping
     public Film update(@Valid @RequestBody Film film) {
         log.info("Получен запрос на обновление фильма: {}", film);
@@ -77,11 +164,20 @@ public class FilmController {
         return filmService.getPopularFilms(count, genreId, year);
     }
 
+    @GetMapping("/top-rated")
+    public List<Film> getTopRatedFilms(@RequestParam(defaultValue = "10") int count) {
+        log.info("Получен запрос на получение {} фильмов с лучшими оценками", count);
+        return filmService.getTopRatedFilms(count);
+    }
+
     @GetMapping("/director/{directorId}")
     public List<Film> getFilmsByDirector(
             @PathVariable Long directorId,
-            @RequestParam(defaultValue = "year") String sortBy) {
-        return filmService.getFilmsByDirector(directorId, DirectorSortBy.fromValue(sortBy));
+            @RequestParam(defaultValue = "year") String sortBy,
+            @RequestParam(defaultValue = "0") int offset,
+            @RequestParam(required = false) Integer limit) {
+        log.info("Получен запрос на получение фильмов режиссёра {}, сортировка {}", directorId, sortBy);
+        return filmService.getFilmsByDirector(directorId, DirectorSortBy.fromValue(sortBy), offset, limit);
     }
 
     @GetMapping("/search")
@@ -91,18 +187,23 @@ public class FilmController {
         return filmService.searchFilms(query, Arrays.stream(by.split(",")).map(SearchBy::fromValue).toList());
     }
 
-
     @DeleteMapping("/{id}")
     public void deleteFilm(@PathVariable Long id) {
         log.info("Получен запрос на удаление фильма с id: {}", id);
         filmService.deleteFilm(id);
     }
 
-    @GetMapping("/common")
+    @GetMapping(value = "/common", params = {"userId", "friendId"})
     public List<Film> getCommonFilms(
             @RequestParam Long userId,
             @RequestParam Long friendId) {
         log.info("Получен запрос на получение общих фильмов пользователей {} и {}", userId, friendId);
         return filmService.getCommonFilms(userId, friendId);
     }
+
+    @GetMapping(value = "/common", params = "userIds")
+    public List<Film> getCommonFilms(@RequestParam List<Long> userIds) {
+        log.info("Получен запрос на получение общих фильмов пользователей {}", userIds);
+        return filmService.getCommonFilms(userIds);
+    }
 }
\ No newline at end of file
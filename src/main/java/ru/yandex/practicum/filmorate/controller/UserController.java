@@ -3,6 +3,7 @@ package ru.yandex.practicum.filmorate.controller;
 import jakarta.validation.Valid;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Film;
@@ -10,11 +11,15 @@ import ru.yandex.practicum.filmorate.model.User;
 import ru.yandex.practicum.filmorate.service.RecommendationService;
 import ru.yandex.practicum.filmorate.service.UserService;
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @Slf4j
 @RequestMapping("/users")
 public class UserController {
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+    private static final int DEFAULT_PAGE_SIZE = 100;
+
     private final UserService userService;
     private final RecommendationService recommendationService;
 
@@ -25,9 +30,25 @@ public class UserController {
     }
 
     @GetMapping
-    public List<User> findAll() {
-        log.info("Получен запрос на получение всех пользователей");
-        return userService.findAll();
+    public ResponseEntity<List<User>> findAll(
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение всех пользователей");
+            return ResponseEntity.ok(userService.findAll());
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы пользователей после id {}, размер {}", after, pageSize);
+
+        List<User> users = userService.findPage(after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (users.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(users.getLast().getId()));
+        }
+
+        return response.body(users);
     }
 
     @GetMapping("/{id}")
@@ -61,9 +82,32 @@ public class UserController {
     }
 
     @GetMapping("/{id}/friends")
-    public List<User> getFriends(@PathVariable Long id) {
-        log.info("Получен запрос на получение списка друзей пользователя: {}", id);
-        return userService.getFriends(id);
+    public ResponseEntity<List<User>> getFriends(
+            @PathVariable Long id,
+            @RequestParam(required = false) Long after,
+            @RequestParam(required = false) Integer limit) {
+        if (after == null && limit == null) {
+            log.info("Получен запрос на получение списка друзей пользователя: {}", id);
+            return ResponseEntity.ok(userService.getFriends(id));
+        }
+
+        int pageSize = limit != null ? limit : DEFAULT_PAGE_SIZE;
+        log.info("Получен запрос на получение страницы друзей пользователя {} после id {}, размер {}", id, after, pageSize);
+
+        List<User> friends = userService.getFriendsPage(id, after, pageSize);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (friends.size() == pageSize) {
+            response.header(NEXT_CURSOR_HEADER, String.valueOf(friends.getLast().getId()));
+        }
+
+        return response.body(friends);
+    }
+
+    @GetMapping("/{id}/friends/suggestions")
+    public List<User> getFriendSuggestions(@PathVariable Long id, @RequestParam(defaultValue = "10") int count) {
+        log.info("Получен запрос на рекомендации друзей для пользователя {}", id);
+        return userService.getFriendSuggestions(id, count);
     }
 
     @GetMapping("/{id}/friends/common/{otherId}")
@@ -84,6 +128,12 @@ public class UserController {
         userService.deleteUser(id);
     }
 
+    @GetMapping("/recommendations/stats")
+    public Map<String, Object> getRecommendationStats() {
+        log.info("Получен запрос на статистику предрассчитанных рекомендаций");
+        return recommendationService.getSnapshotStats();
+    }
+
     @GetMapping("/{id}/recommendations")
     public List<Film> getRecommendations(@PathVariable Long id) {
         log.info("Запрошены рекомендации для пользователя {}", id);
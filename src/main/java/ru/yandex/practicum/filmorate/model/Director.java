@@ -1,16 +1,15 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonCreator;
 import jakarta.validation.constraints.NotBlank;
 import lombok.AllArgsConstructor;
-import lombok.Data;
-import lombok.NoArgsConstructor;
+import lombok.Value;
 
-@Data
-@NoArgsConstructor
-@AllArgsConstructor
+@Value
+@AllArgsConstructor(onConstructor_ = @JsonCreator)
 public class Director {
-    private Long id;
+    Long id;
 
     @NotBlank(message = "Имя режиссера не может быть пустым")
-    private String name;
+    String name;
 }
@@ -1,10 +1,13 @@
 package ru.yandex.practicum.filmorate.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import jakarta.validation.constraints.Positive;
 import jakarta.validation.constraints.Size;
 import lombok.Data;
+import lombok.EqualsAndHashCode;
+import lombok.ToString;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.HashSet;
@@ -34,5 +37,15 @@ public class Film {
     private Set<Genre> genres = new TreeSet<>((i1, i2) -> Math.toIntExact(i1.getId() - i2.getId()));
     private Set<Director> directors = new HashSet<>();
 
+    @JsonIgnore
+    @ToString.Exclude
+    @EqualsAndHashCode.Exclude
+    private boolean likesSpecified;
+
+    public void setLikes(Set<Long> likes) {
+        this.likes = likes;
+        this.likesSpecified = true;
+    }
+
     public static final LocalDate RULE_FILM_DATE = LocalDate.of(1895, 12, 28);
 }
\ No newline at end of file
@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+public class FilmImportResult {
+    private int imported;
+    private int failed;
+    private List<FilmImportError> errors = new ArrayList<>();
+
+    public void addError(int row, String message) {
+        failed++;
+        errors.add(new FilmImportError(row, message));
+    }
+}
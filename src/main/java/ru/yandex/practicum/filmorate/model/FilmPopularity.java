@@ -0,0 +1,18 @@
+package ru.yandex.practicum.filmorate.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.HashSet;
+import java.util.Set;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FilmPopularity {
+    private Long filmId;
+    private int likes;
+    private Integer year;
+    private Set<Long> genreIds = new HashSet<>();
+}
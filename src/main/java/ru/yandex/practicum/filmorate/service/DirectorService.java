@@ -5,56 +5,35 @@ import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.Director;
-import ru.yandex.practicum.filmorate.model.Film;
 import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
-import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 
-import java.util.Comparator;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class DirectorService {
     private final DirectorDbStorage directorStorage;
-    private final FilmStorage filmStorage;
+    private final FilmSearchIndex filmSearchIndex;
+    private final FilmCache filmCache;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     public List<Director> getAllDirectors() {
-        return directorStorage.getAll();
+        return referenceDataRegistry.getDirectors();
     }
 
     public Director getDirectorById(Long id) {
-        return directorStorage.getById(id)
+        return referenceDataRegistry.findDirector(id)
                 .orElseThrow(() -> new NotFoundException("Режиссёр с id = " + id + " не найден"));
     }
 
     public Director createDirector(Director director) {
-        return directorStorage.create(director);
-    }
+        Director createdDirector = directorStorage.create(director);
+        referenceDataRegistry.putDirector(createdDirector);
+        filmSearchIndex.putDirector(createdDirector);
 
-    public List<Film> getFilmsByDirector(Long directorId, String sortBy) {
-        directorStorage.getById(directorId)
-                .orElseThrow(() -> new NotFoundException("Режиссёр с id = " + directorId + " не найден"));
-
-        List<Film> directorFilms = filmStorage.findAll().stream()
-                .filter(film -> film.getDirectors().stream().anyMatch(d -> d.getId().equals(directorId)))
-                .toList();
-
-        if ("year".equalsIgnoreCase(sortBy)) {
-            return directorFilms.stream()
-                    .sorted(Comparator.comparing(Film::getReleaseDate))
-                    .collect(Collectors.toList());
-        } else if ("likes".equalsIgnoreCase(sortBy)) {
-            return directorFilms.stream()
-                    .sorted((f1, f2) -> Integer.compare(
-                            f2.getLikes().size(),
-                            f1.getLikes().size()))
-                    .collect(Collectors.toList());
-        } else {
-            throw new IllegalArgumentException("Некорректный параметр сортировки: " + sortBy +
-                    ". Допустимые значения: year, likes");
-        }
+        return createdDirector;
     }
 
     public Director updateDirector(Director director) {
@@ -62,24 +41,35 @@ public class DirectorService {
             throw new NotFoundException("Id режиссёра не указан");
         }
 
-        Director existingDirector = directorStorage.getById(director.getId())
+        Director existingDirector = referenceDataRegistry.findDirector(director.getId())
                 .orElseThrow(() -> new NotFoundException("Режиссёр с id = " + director.getId() + " не найден"));
 
-        if (director.getName() != null) {
-            if (director.getName().isBlank()) {
-                throw new ValidationException("Имя режиссёра не может быть пустым");
-            }
-            existingDirector.setName(director.getName());
+        if (director.getName() != null && director.getName().isBlank()) {
+            throw new ValidationException("Имя режиссёра не может быть пустым");
         }
 
-        return directorStorage.update(existingDirector);
+        String name = director.getName() != null ? director.getName() : existingDirector.getName();
+        Director updatedDirector = directorStorage.update(new Director(existingDirector.getId(), name));
+        referenceDataRegistry.putDirector(updatedDirector);
+        filmSearchIndex.putDirector(updatedDirector);
+        invalidateDirectorFilms(director.getId());
+
+        return updatedDirector;
     }
 
     public void deleteDirector(Long id) {
-        directorStorage.getById(id)
+        referenceDataRegistry.findDirector(id)
                 .orElseThrow(() -> new NotFoundException("Режиссёр с id = " + id + " не найден"));
 
         directorStorage.delete(id);
+        referenceDataRegistry.removeDirector(id);
+        filmSearchIndex.removeDirector(id);
+        invalidateDirectorFilms(id);
+    }
+
+    private void invalidateDirectorFilms(Long directorId) {
+        filmCache.invalidateIf(film -> film.getDirectors().stream()
+                .anyMatch(director -> director.getId().equals(directorId)));
     }
 
     public void validateDirectorsExist(Set<Long> directorIds) {
@@ -87,14 +77,7 @@ public class DirectorService {
             return;
         }
 
-        List<Director> existingDirectors = directorStorage.findByIds(directorIds);
-        Set<Long> foundIds = existingDirectors.stream()
-                .map(Director::getId)
-                .collect(Collectors.toSet());
-
-        Set<Long> missingIds = directorIds.stream()
-                .filter(id -> !foundIds.contains(id))
-                .collect(Collectors.toSet());
+        Set<Long> missingIds = referenceDataRegistry.findMissingDirectorIds(directorIds);
 
         if (!missingIds.isEmpty()) {
             throw new NotFoundException("Режиссёры с id " + missingIds + " не найдены");
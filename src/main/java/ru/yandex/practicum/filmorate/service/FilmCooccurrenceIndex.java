@@ -0,0 +1,301 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmCooccurrenceIndex {
+    public static final int MAX_NEIGHBOURS = 50;
+
+    private final FilmLikeIndex filmLikeIndex;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, Row> rows = new HashMap<>();
+    private final Set<Long> staleFilmIds = new HashSet<>();
+
+    @PostConstruct
+    public void rebuild() {
+        List<Long> filmIds = filmLikeIndex.getFilmIds();
+
+        lock.writeLock().lock();
+        try {
+            rows.clear();
+            staleFilmIds.clear();
+            filmIds.forEach(filmId -> publish(filmId, computeRow(filmId)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс совместных лайков построен: {} фильмов", rows.size());
+    }
+
+    public void addLike(Long filmId, Long userId) {
+        updatePairs(filmId, filmLikeIndex.getLikedFilmIds(userId));
+        refreshStaleRows();
+    }
+
+    public void removeLike(Long filmId, Long userId) {
+        updatePairs(filmId, filmLikeIndex.getLikedFilmIds(userId));
+        refreshStaleRows();
+    }
+
+    public void removeUser(Collection<Long> likedFilmIds) {
+        lock.writeLock().lock();
+        try {
+            staleFilmIds.addAll(likedFilmIds);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        refreshStaleRows();
+    }
+
+    public Set<Long> getCoLikedFilmIds(Long filmId) {
+        return filmLikeIndex.countCoLikes(filmId).keySet();
+    }
+
+    public void putFilm(Long filmId, Set<Long> previousCoLikedFilmIds) {
+        lock.writeLock().lock();
+        try {
+            Set<Long> neighbours = new HashSet<>(previousCoLikedFilmIds);
+            neighbours.addAll(getCoLikedFilmIds(filmId));
+
+            staleFilmIds.add(filmId);
+
+            for (Long otherFilmId : neighbours) {
+                set(otherFilmId, filmId, filmLikeIndex.countCommonUsers(filmId, otherFilmId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        refreshStaleRows();
+    }
+
+    public void removeFilm(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            rows.remove(filmId);
+            staleFilmIds.remove(filmId);
+            for (Long otherFilmId : getCoLikedFilmIds(filmId)) {
+                set(otherFilmId, filmId, 0);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        refreshStaleRows();
+    }
+
+    public List<Long> getSimilarFilmIds(Long filmId, int count) {
+        lock.readLock().lock();
+        try {
+            Row row = rows.get(filmId);
+            return row != null ? row.top(count) : List.of();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void updatePairs(long filmId, long[] otherFilmIds) {
+        lock.writeLock().lock();
+        try {
+            for (long otherFilmId : otherFilmIds) {
+                if (otherFilmId == filmId) {
+                    continue;
+                }
+                int common = filmLikeIndex.countCommonUsers(filmId, otherFilmId);
+                set(filmId, otherFilmId, common);
+                set(otherFilmId, filmId, common);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void refreshStaleRows() {
+        List<Long> filmIds;
+
+        lock.readLock().lock();
+        try {
+            if (staleFilmIds.isEmpty()) {
+                return;
+            }
+            filmIds = List.copyOf(staleFilmIds);
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        filmIds.forEach(this::refresh);
+    }
+
+    private void refresh(Long filmId) {
+        Row current;
+        int changes;
+
+        lock.readLock().lock();
+        try {
+            if (!staleFilmIds.contains(filmId)) {
+                return;
+            }
+            current = rows.get(filmId);
+            changes = current != null ? current.changes : 0;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        Row row = computeRow(filmId);
+
+        lock.writeLock().lock();
+        try {
+            Row published = rows.get(filmId);
+            if (!staleFilmIds.contains(filmId) || published != current
+                    || (published != null && published.changes != changes)) {
+                return;
+            }
+
+            publish(filmId, row);
+            staleFilmIds.remove(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private Row computeRow(Long filmId) {
+        Row row = new Row();
+        filmLikeIndex.countCoLikes(filmId).forEach(row::offer);
+        return row;
+    }
+
+    private void publish(Long filmId, Row row) {
+        if (row.size == 0) {
+            rows.remove(filmId);
+        } else {
+            rows.put(filmId, row);
+        }
+    }
+
+    private void set(Long filmId, Long otherFilmId, int common) {
+        Row row = rows.get(filmId);
+        if (row == null) {
+            if (common == 0) {
+                return;
+            }
+            row = new Row();
+            rows.put(filmId, row);
+        }
+
+        row.set(otherFilmId, common);
+        row.changes++;
+
+        if (!row.complete) {
+            staleFilmIds.add(filmId);
+        }
+
+        if (row.size == 0 && row.complete) {
+            rows.remove(filmId);
+        }
+    }
+
+    private static class Row {
+        private final long[] filmIds = new long[MAX_NEIGHBOURS];
+        private final int[] counts = new int[MAX_NEIGHBOURS];
+        private int size = 0;
+        private boolean complete = true;
+        private int changes = 0;
+
+        void offer(long filmId, int count) {
+            if (count <= 0) {
+                return;
+            }
+
+            if (size < MAX_NEIGHBOURS) {
+                filmIds[size] = filmId;
+                counts[size] = count;
+                size++;
+                siftUp(size - 1);
+            } else if (ranksBefore(filmId, count, size - 1)) {
+                filmIds[size - 1] = filmId;
+                counts[size - 1] = count;
+                siftUp(size - 1);
+            }
+        }
+
+        void set(long filmId, int count) {
+            int position = indexOf(filmId);
+
+            if (position < 0) {
+                offer(filmId, count);
+                return;
+            }
+
+            if (count < counts[position] && size == MAX_NEIGHBOURS) {
+                complete = false;
+            }
+
+            if (count <= 0) {
+                System.arraycopy(filmIds, position + 1, filmIds, position, size - position - 1);
+                System.arraycopy(counts, position + 1, counts, position, size - position - 1);
+                size--;
+                return;
+            }
+
+            counts[position] = count;
+            siftUp(position);
+            siftDown(position);
+        }
+
+        List<Long> top(int count) {
+            List<Long> result = new ArrayList<>(Math.min(count, size));
+            for (int i = 0; i < size && i < count; i++) {
+                result.add(filmIds[i]);
+            }
+            return result;
+        }
+
+        private int indexOf(long filmId) {
+            for (int i = 0; i < size; i++) {
+                if (filmIds[i] == filmId) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        private boolean ranksBefore(long filmId, int count, int position) {
+            return count > counts[position] || (count == counts[position] && filmId < filmIds[position]);
+        }
+
+        private void siftUp(int position) {
+            while (position > 0 && ranksBefore(filmIds[position], counts[position], position - 1)) {
+                swap(position, position - 1);
+                position--;
+            }
+        }
+
+        private void siftDown(int position) {
+            while (position + 1 < size && ranksBefore(filmIds[position + 1], counts[position + 1], position)) {
+                swap(position, position + 1);
+                position++;
+            }
+        }
+
+        private void swap(int i, int j) {
+            long filmId = filmIds[i];
+            filmIds[i] = filmIds[j];
+            filmIds[j] = filmId;
+
+            int count = counts[i];
+            counts[i] = counts[j];
+            counts[j] = count;
+        }
+    }
+}
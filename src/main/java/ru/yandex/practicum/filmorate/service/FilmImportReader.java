@@ -0,0 +1,188 @@
+package ru.yandex.practicum.filmorate.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.exception.FilmValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+@Component
+@RequiredArgsConstructor
+public class FilmImportReader {
+    private final ObjectMapper objectMapper;
+
+    public FilmRows readArray(InputStream body) {
+        try {
+            JsonParser parser = objectMapper.getFactory().createParser(body);
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                parser.close();
+                throw new FilmValidationException("Тело запроса должно быть массивом JSON");
+            }
+            return new ArrayRows(parser);
+        } catch (JsonProcessingException e) {
+            throw new FilmValidationException("Некорректный JSON: " + e.getOriginalMessage());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public FilmRows readLines(InputStream body) {
+        return new LineRows(new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)));
+    }
+
+    public interface FilmRows extends Iterator<Film>, Closeable {
+        int getRow();
+
+        @Override
+        void close();
+    }
+
+    private class ArrayRows implements FilmRows {
+        private final JsonParser parser;
+        private int row = 0;
+        private boolean advanced = false;
+        private boolean finished = false;
+        private String syntaxError;
+
+        ArrayRows(JsonParser parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (!advanced && !finished) {
+                advanced = true;
+                try {
+                    JsonToken token = parser.nextToken();
+                    finished = token == null || token == JsonToken.END_ARRAY;
+                } catch (JsonProcessingException e) {
+                    syntaxError = e.getOriginalMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+            return !finished;
+        }
+
+        @Override
+        public Film next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            advanced = false;
+            row++;
+
+            JsonNode node = null;
+            if (syntaxError == null) {
+                try {
+                    node = parser.readValueAsTree();
+                } catch (JsonProcessingException e) {
+                    syntaxError = e.getOriginalMessage();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+
+            if (syntaxError != null) {
+                finished = true;
+                throw new FilmValidationException("Некорректный JSON: " + syntaxError);
+            }
+
+            try {
+                return objectMapper.treeToValue(node, Film.class);
+            } catch (JsonProcessingException e) {
+                throw new FilmValidationException("Некорректный элемент массива JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public void close() {
+            try {
+                parser.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    private class LineRows implements FilmRows {
+        private final BufferedReader reader;
+        private int row = 0;
+        private int lineNumber = 0;
+        private String nextLine;
+
+        LineRows(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                while (nextLine == null) {
+                    String line = reader.readLine();
+                    if (line == null) {
+                        return false;
+                    }
+
+                    lineNumber++;
+                    if (!line.isBlank()) {
+                        nextLine = line;
+                    }
+                }
+                return true;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public Film next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+
+            String line = nextLine;
+            nextLine = null;
+            row = lineNumber;
+
+            try {
+                return objectMapper.readValue(line, Film.class);
+            } catch (JsonProcessingException e) {
+                throw new FilmValidationException("Некорректная строка JSON: " + e.getOriginalMessage());
+            }
+        }
+
+        @Override
+        public int getRow() {
+            return row;
+        }
+
+        @Override
+        public void close() {
+            try {
+                reader.close();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
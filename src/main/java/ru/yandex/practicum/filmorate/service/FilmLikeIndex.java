@@ -0,0 +1,388 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+public class FilmLikeIndex {
+    private static final IdBitmap EMPTY = new IdBitmap();
+    private static final int EXACT_SCAN_LIMIT = 10_000;
+    private static final int SCORING_CHUNK_SIZE = 2048;
+
+    private final FilmStorage filmStorage;
+    private final ForkJoinPool scoringPool;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, IdBitmap> filmsByUser = new HashMap<>();
+    private final Map<Long, IdBitmap> usersByFilm = new HashMap<>();
+    private final UserMinHash minHash = new UserMinHash();
+    private final Map<Long, Long> lastModified = new HashMap<>();
+    private long version = 0;
+
+    @Autowired
+    public FilmLikeIndex(FilmStorage filmStorage,
+                         @Value("${filmorate.recommendations.scoring-parallelism:0}") int parallelism) {
+        this.filmStorage = filmStorage;
+        this.scoringPool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
+    @PostConstruct
+    public void rebuild() {
+        long[] total = {0};
+
+        lock.writeLock().lock();
+        try {
+            filmsByUser.clear();
+            usersByFilm.clear();
+            minHash.clear();
+            lastModified.clear();
+            version++;
+
+            long[] currentUserId = {-1};
+            IdBitmap[] currentFilmIds = {null};
+
+            filmStorage.forEachLikeByUser((userId, filmId) -> {
+                if (userId != currentUserId[0]) {
+                    if (currentFilmIds[0] != null) {
+                        minHash.put(currentUserId[0], currentFilmIds[0].toArray());
+                    }
+                    currentUserId[0] = userId;
+                    currentFilmIds[0] = filmsByUser.computeIfAbsent(userId, k -> new IdBitmap());
+                }
+
+                currentFilmIds[0].add(filmId);
+                usersByFilm.computeIfAbsent(filmId, k -> new IdBitmap()).add(userId);
+                total[0]++;
+            });
+
+            if (currentFilmIds[0] != null) {
+                minHash.put(currentUserId[0], currentFilmIds[0].toArray());
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс лайков построен: {} пользователей, {} фильмов, {} лайков",
+                filmsByUser.size(), usersByFilm.size(), total[0]);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        scoringPool.shutdownNow();
+    }
+
+    public void addLike(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            link(filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeLike(Long filmId, Long userId) {
+        lock.writeLock().lock();
+        try {
+            unlinkUserFilm(userId, filmId);
+            unlink(usersByFilm, filmId, userId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putFilm(Long filmId, Set<Long> userIds) {
+        lock.writeLock().lock();
+        try {
+            unlinkFilm(filmId);
+            userIds.forEach(userId -> link(filmId, userId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unlinkFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(Long userId) {
+        lock.writeLock().lock();
+        try {
+            IdBitmap filmIds = filmsByUser.remove(userId);
+            minHash.remove(userId);
+            lastModified.remove(userId);
+            version++;
+            if (filmIds != null) {
+                filmIds.forEach(filmId -> unlink(usersByFilm, filmId, userId));
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public List<Long> getUserIds() {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(filmsByUser.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getFilmIds() {
+        lock.readLock().lock();
+        try {
+            return List.copyOf(usersByFilm.keySet());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long[] getLikedFilmIds(Long userId) {
+        lock.readLock().lock();
+        try {
+            return filmsByUser.getOrDefault(userId, EMPTY).toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> getCommonFilmIds(Collection<Long> userIds) {
+        lock.readLock().lock();
+        try {
+            List<IdBitmap> postings = userIds.stream()
+                    .map(userId -> filmsByUser.getOrDefault(userId, EMPTY))
+                    .sorted(Comparator.comparingInt(IdBitmap::cardinality))
+                    .toList();
+
+            if (postings.isEmpty()) {
+                return Set.of();
+            }
+
+            IdBitmap common = postings.get(0);
+            for (int i = 1; i < postings.size() && !common.isEmpty(); i++) {
+                common = common.and(postings.get(i));
+            }
+
+            return common.toSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countLikes(Long filmId) {
+        lock.readLock().lock();
+        try {
+            return usersByFilm.getOrDefault(filmId, EMPTY).cardinality();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int countCommonUsers(Long filmId, Long otherFilmId) {
+        lock.readLock().lock();
+        try {
+            return usersByFilm.getOrDefault(filmId, EMPTY).andCardinality(usersByFilm.getOrDefault(otherFilmId, EMPTY));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Map<Long, Integer> countCoLikes(Long filmId) {
+        Map<Long, Integer> counts = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            usersByFilm.getOrDefault(filmId, EMPTY).forEach(userId ->
+                    filmsByUser.getOrDefault(userId, EMPTY).forEach(otherFilmId -> {
+                        if (otherFilmId != filmId) {
+                            counts.merge(otherFilmId, 1, Integer::sum);
+                        }
+                    }));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return counts;
+    }
+
+    public long getVersion() {
+        lock.readLock().lock();
+        try {
+            return version;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public long getLastModified(Long userId) {
+        lock.readLock().lock();
+        try {
+            return lastModified.getOrDefault(userId, 0L);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Set<Long> getRecommendedFilmIds(Long userId) {
+        lock.readLock().lock();
+        try {
+            IdBitmap target = filmsByUser.getOrDefault(userId, EMPTY);
+            if (target.isEmpty()) {
+                return Set.of();
+            }
+
+            long bestUserId = -1;
+            if (countNeighbourhood(target) > EXACT_SCAN_LIMIT) {
+                bestUserId = findMostSimilar(userId, target, minHash.candidates(userId, target.toArray()));
+            }
+
+            if (bestUserId < 0) {
+                bestUserId = findMostSimilar(userId, target, collectCandidates(target));
+            }
+
+            if (bestUserId < 0) {
+                return Set.of();
+            }
+
+            return filmsByUser.get(bestUserId).andNot(target).toSet();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long findMostSimilar(long userId, IdBitmap target, Set<Long> candidates) {
+        long[] sorted = candidates.stream().mapToLong(Long::longValue).sorted().toArray();
+        return findMostSimilar(userId, target, sorted);
+    }
+
+    private long findMostSimilar(long userId, IdBitmap target, long[] sortedCandidates) {
+        ScoringTask task = new ScoringTask(userId, target, sortedCandidates, 0, sortedCandidates.length);
+        Match best = sortedCandidates.length > SCORING_CHUNK_SIZE ? scoringPool.invoke(task) : task.compute();
+        return best.userId();
+    }
+
+    private Match score(long userId, IdBitmap target, long[] sortedCandidates, int from, int to) {
+        long bestUserId = -1;
+        int bestCommon = 0;
+
+        for (int i = from; i < to; i++) {
+            long candidateId = sortedCandidates[i];
+            if (candidateId == userId) {
+                continue;
+            }
+
+            int common = target.andCardinality(filmsByUser.getOrDefault(candidateId, EMPTY));
+            if (common > bestCommon) {
+                bestCommon = common;
+                bestUserId = candidateId;
+            }
+        }
+
+        return new Match(bestUserId, bestCommon);
+    }
+
+    private long countNeighbourhood(IdBitmap filmIds) {
+        long[] size = {0};
+        filmIds.forEach(filmId -> size[0] += usersByFilm.getOrDefault(filmId, EMPTY).cardinality());
+        return size[0];
+    }
+
+    private long[] collectCandidates(IdBitmap filmIds) {
+        IdBitmap candidates = new IdBitmap();
+        filmIds.forEach(filmId -> candidates.or(usersByFilm.getOrDefault(filmId, EMPTY)));
+        return candidates.toArray();
+    }
+
+    private void link(Long filmId, Long userId) {
+        filmsByUser.computeIfAbsent(userId, k -> new IdBitmap()).add(filmId);
+        usersByFilm.computeIfAbsent(filmId, k -> new IdBitmap()).add(userId);
+        minHash.add(userId, filmId);
+        touch(userId);
+    }
+
+    private void unlinkFilm(Long filmId) {
+        IdBitmap userIds = usersByFilm.remove(filmId);
+        if (userIds != null) {
+            userIds.forEach(userId -> unlinkUserFilm(userId, filmId));
+        }
+    }
+
+    private void unlinkUserFilm(long userId, long filmId) {
+        unlink(filmsByUser, userId, filmId);
+        minHash.put(userId, filmsByUser.getOrDefault(userId, EMPTY).toArray());
+        touch(userId);
+    }
+
+    private void touch(long userId) {
+        lastModified.put(userId, ++version);
+    }
+
+    private void unlink(Map<Long, IdBitmap> postings, long key, long value) {
+        IdBitmap values = postings.get(key);
+        if (values == null) {
+            return;
+        }
+
+        values.remove(value);
+        if (values.isEmpty()) {
+            postings.remove(key);
+        }
+    }
+
+    private record Match(long userId, int common) {
+        Match better(Match other) {
+            if (other.common != common) {
+                return other.common > common ? other : this;
+            }
+            return other.userId >= 0 && (userId < 0 || other.userId < userId) ? other : this;
+        }
+    }
+
+    private class ScoringTask extends RecursiveTask<Match> {
+        private final long userId;
+        private final IdBitmap target;
+        private final long[] sortedCandidates;
+        private final int from;
+        private final int to;
+
+        ScoringTask(long userId, IdBitmap target, long[] sortedCandidates, int from, int to) {
+            this.userId = userId;
+            this.target = target;
+            this.sortedCandidates = sortedCandidates;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected Match compute() {
+            if (to - from <= SCORING_CHUNK_SIZE) {
+                return score(userId, target, sortedCandidates, from, to);
+            }
+
+            int middle = (from + to) >>> 1;
+            ScoringTask left = new ScoringTask(userId, target, sortedCandidates, from, middle);
+            ScoringTask right = new ScoringTask(userId, target, sortedCandidates, middle, to);
+            left.fork();
+            Match rightMatch = right.compute();
+            return left.join().better(rightMatch);
+        }
+    }
+}
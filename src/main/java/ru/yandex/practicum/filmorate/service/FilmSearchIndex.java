@@ -0,0 +1,233 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.SearchBy;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.time.LocalDate;
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FilmSearchIndex {
+    private static final int GRAM_LENGTH = 3;
+
+    private final FilmStorage filmStorage;
+    private final ReferenceDataRegistry referenceDataRegistry;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, String> titles = new HashMap<>();
+    private final Map<Long, LocalDate> releaseDates = new HashMap<>();
+    private final Map<String, Set<Long>> titleGrams = new HashMap<>();
+    private final Map<Long, String> directorNames = new HashMap<>();
+    private final Map<String, Set<Long>> directorGrams = new HashMap<>();
+    private final Map<Long, Set<Long>> filmDirectors = new HashMap<>();
+    private final Map<Long, Set<Long>> directorFilms = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        lock.writeLock().lock();
+        try {
+            titles.clear();
+            releaseDates.clear();
+            titleGrams.clear();
+            directorNames.clear();
+            directorGrams.clear();
+            filmDirectors.clear();
+            directorFilms.clear();
+            referenceDataRegistry.getDirectors()
+                    .forEach(director -> linkDirectorName(director.getId(), director.getName()));
+            filmStorage.forEachFilm(this::linkFilm);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Поисковый индекс фильмов построен: {} фильмов, {} режиссёров", titles.size(), directorNames.size());
+    }
+
+    public void putFilm(Film film) {
+        lock.writeLock().lock();
+        try {
+            unlinkFilm(film.getId());
+            linkFilm(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFilm(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unlinkFilm(filmId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putDirector(Director director) {
+        lock.writeLock().lock();
+        try {
+            unlinkDirectorName(director.getId());
+            linkDirectorName(director.getId(), director.getName());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeDirector(Long directorId) {
+        lock.writeLock().lock();
+        try {
+            unlinkDirectorName(directorId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<Long> search(String query, List<SearchBy> by) {
+        String text = query.toLowerCase(Locale.ROOT);
+        Set<Long> filmIds = new HashSet<>();
+
+        lock.readLock().lock();
+        try {
+            if (by.contains(SearchBy.TITLE)) {
+                filmIds.addAll(match(text, titleGrams, titles));
+            }
+
+            if (by.contains(SearchBy.DIRECTOR)) {
+                for (Long directorId : match(text, directorGrams, directorNames)) {
+                    filmIds.addAll(directorFilms.getOrDefault(directorId, Set.of()));
+                }
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return filmIds;
+    }
+
+    public Map<Long, LocalDate> getReleaseDates(Collection<Long> filmIds) {
+        Map<Long, LocalDate> result = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            filmIds.forEach(id -> result.put(id, releaseDates.get(id)));
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    private Set<Long> match(String query, Map<String, Set<Long>> grams, Map<Long, String> texts) {
+        if (query.length() < GRAM_LENGTH) {
+            return texts.entrySet().stream()
+                    .filter(entry -> entry.getValue().contains(query))
+                    .map(Map.Entry::getKey)
+                    .collect(Collectors.toSet());
+        }
+
+        List<Set<Long>> postings = new ArrayList<>();
+        for (String gram : grams(query)) {
+            Set<Long> posting = grams.get(gram);
+            if (posting == null) {
+                return Set.of();
+            }
+            postings.add(posting);
+        }
+        postings.sort(Comparator.comparingInt(Set::size));
+
+        Set<Long> result = new HashSet<>();
+        for (Long id : postings.getFirst()) {
+            if (postings.stream().allMatch(posting -> posting.contains(id)) && texts.get(id).contains(query)) {
+                result.add(id);
+            }
+        }
+
+        return result;
+    }
+
+    private void linkFilm(Film film) {
+        String title = film.getName().toLowerCase(Locale.ROOT);
+
+        titles.put(film.getId(), title);
+        releaseDates.put(film.getId(), film.getReleaseDate());
+        addGrams(titleGrams, title, film.getId());
+
+        Set<Long> directorIds = new HashSet<>();
+        for (Director director : film.getDirectors()) {
+            directorIds.add(director.getId());
+            directorFilms.computeIfAbsent(director.getId(), k -> new HashSet<>()).add(film.getId());
+            if (director.getName() != null && !directorNames.containsKey(director.getId())) {
+                linkDirectorName(director.getId(), director.getName());
+            }
+        }
+        filmDirectors.put(film.getId(), directorIds);
+    }
+
+    private void unlinkFilm(Long filmId) {
+        String title = titles.remove(filmId);
+        if (title == null) {
+            return;
+        }
+
+        releaseDates.remove(filmId);
+        removeGrams(titleGrams, title, filmId);
+
+        for (Long directorId : filmDirectors.remove(filmId)) {
+            Set<Long> films = directorFilms.get(directorId);
+            films.remove(filmId);
+            if (films.isEmpty()) {
+                directorFilms.remove(directorId);
+            }
+        }
+    }
+
+    private void linkDirectorName(Long directorId, String name) {
+        String text = name.toLowerCase(Locale.ROOT);
+
+        directorNames.put(directorId, text);
+        addGrams(directorGrams, text, directorId);
+    }
+
+    private void unlinkDirectorName(Long directorId) {
+        String text = directorNames.remove(directorId);
+        if (text != null) {
+            removeGrams(directorGrams, text, directorId);
+        }
+    }
+
+    private void addGrams(Map<String, Set<Long>> grams, String text, Long id) {
+        for (String gram : grams(text)) {
+            grams.computeIfAbsent(gram, k -> new HashSet<>()).add(id);
+        }
+    }
+
+    private void removeGrams(Map<String, Set<Long>> grams, String text, Long id) {
+        for (String gram : grams(text)) {
+            Set<Long> posting = grams.get(gram);
+            if (posting != null) {
+                posting.remove(id);
+                if (posting.isEmpty()) {
+                    grams.remove(gram);
+                }
+            }
+        }
+    }
+
+    private Set<String> grams(String text) {
+        Set<String> result = new HashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            result.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return result;
+    }
+}
@@ -1,94 +1,168 @@
 package ru.yandex.practicum.filmorate.service;
 
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.FilmValidationException;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Set;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 import static ru.yandex.practicum.filmorate.model.Film.RULE_FILM_DATE;
 
+@Slf4j
 @Service
 public class FilmService {
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final int IMPORT_BATCH_SIZE = 1000;
+    private static final int MIN_RATE = 1;
+    private static final int MAX_RATE = 10;
+
     private final FilmStorage filmStorage;
     private final UserStorage userStorage;
     private final MPAService mpaService;
     private final GenreService genreService;
     private final FeedService feedService;
     private final DirectorService directorService;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmSearchIndex filmSearchIndex;
+    private final FilmLikeIndex filmLikeIndex;
+    private final FilmCooccurrenceIndex filmCooccurrenceIndex;
+    private final FilmCache filmCache;
+    private final FilmImportReader filmImportReader;
+    private final Validator validator;
+    private final int ratingPriorVotes;
 
     @Autowired
     public FilmService(FilmStorage filmStorage, UserStorage userStorage,
                        MPAService mpaService, GenreService genreService,
-                       DirectorService directorService, FeedService feedService) {
+                       DirectorService directorService, FeedService feedService,
+                       PopularFilmsIndex popularFilmsIndex, FilmSearchIndex filmSearchIndex,
+                       FilmLikeIndex filmLikeIndex, FilmCooccurrenceIndex filmCooccurrenceIndex,
+                       FilmCache filmCache, FilmImportReader filmImportReader, Validator validator,
+                       @Value("${filmorate.ratings.prior-votes:10}") int ratingPriorVotes) {
         this.filmStorage = filmStorage;
         this.userStorage = userStorage;
         this.mpaService = mpaService;
         this.genreService = genreService;
         this.feedService = feedService;
         this.directorService = directorService;
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.filmSearchIndex = filmSearchIndex;
+        this.filmLikeIndex = filmLikeIndex;
+        this.filmCooccurrenceIndex = filmCooccurrenceIndex;
+        this.filmCache = filmCache;
+        this.filmImportReader = filmImportReader;
+        this.validator = validator;
+        this.ratingPriorVotes = ratingPriorVotes;
     }
 
     public List<Film> findAll() {
         return filmStorage.findAll();
     }
 
+    public List<Film> findPage(Long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        return filmStorage.findPage(afterId != null ? afterId : 0L, limit);
+    }
+
+    public void forEachFilm(Consumer<Film> consumer) {
+        filmStorage.forEachFilm(consumer);
+    }
+
     public Film create(Film film) {
-        validateFilmReleaseDate(film);
+        validateFilm(film);
 
-        if (film.getMpa() != null && film.getMpa().getId() != null) {
-            mpaService.getMPAById(film.getMpa().getId());
+        Film createdFilm = filmStorage.create(film);
+        registerFilm(createdFilm);
+
+        return createdFilm;
+    }
+
+    public FilmImportResult importFilmArray(InputStream body) {
+        try (FilmImportReader.FilmRows films = filmImportReader.readArray(body)) {
+            return importFilms(films);
         }
+    }
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            Set<Long> genreIds = film.getGenres().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toSet());
-            genreService.validateGenresExist(genreIds);
+    public FilmImportResult importFilmLines(InputStream body) {
+        try (FilmImportReader.FilmRows films = filmImportReader.readLines(body)) {
+            return importFilms(films);
         }
+    }
 
-        if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
-            Set<Long> directorIds = film.getDirectors().stream()
-                    .map(Director::getId)
-                    .collect(Collectors.toSet());
-            directorService.validateDirectorsExist(directorIds);
+    private FilmImportResult importFilms(FilmImportReader.FilmRows films) {
+        FilmImportResult result = new FilmImportResult();
+        List<Film> batch = new ArrayList<>(IMPORT_BATCH_SIZE);
+        List<Integer> batchRows = new ArrayList<>(IMPORT_BATCH_SIZE);
+
+        while (films.hasNext()) {
+            Film film;
+            try {
+                film = films.next();
+                normalizeImportedFilm(film);
+                validateImportedFilm(film);
+            } catch (RuntimeException e) {
+                result.addError(films.getRow(), e.getMessage());
+                continue;
+            }
+
+            batch.add(film);
+            batchRows.add(films.getRow());
+
+            if (batch.size() == IMPORT_BATCH_SIZE) {
+                importBatch(batch, batchRows, result);
+            }
         }
 
-        return filmStorage.create(film);
+        importBatch(batch, batchRows, result);
+        result.getErrors().sort(Comparator.comparingInt(FilmImportError::getRow));
+
+        log.info("Импорт фильмов завершён: загружено {}, отклонено {}", result.getImported(), result.getFailed());
+        return result;
     }
 
     public Film update(Film film) {
-        validateFilmReleaseDate(film);
+        validateFilm(film);
 
-        if (film.getMpa() != null && film.getMpa().getId() != null) {
-            mpaService.getMPAById(film.getMpa().getId());
-        }
+        filmStorage.findById(film.getId())
+                .orElseThrow(() -> new NotFoundException("Фильм с id = " + film.getId() + " не найден"));
 
-        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
-            Set<Long> genreIds = film.getGenres().stream()
-                    .map(Genre::getId)
-                    .collect(Collectors.toSet());
-            genreService.validateGenresExist(genreIds);
-        }
+        Set<Long> previousCoLikedFilmIds = film.isLikesSpecified()
+                ? filmCooccurrenceIndex.getCoLikedFilmIds(film.getId())
+                : Set.of();
+        Film updatedFilm = filmStorage.update(film);
+        popularFilmsIndex.put(updatedFilm);
+        filmSearchIndex.putFilm(updatedFilm);
 
-        if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
-            Set<Long> directorIds = film.getDirectors().stream()
-                    .map(Director::getId)
-                    .collect(Collectors.toSet());
-            directorService.validateDirectorsExist(directorIds);
+        if (film.isLikesSpecified()) {
+            filmLikeIndex.putFilm(updatedFilm.getId(), updatedFilm.getLikes());
+            filmCooccurrenceIndex.putFilm(updatedFilm.getId(), previousCoLikedFilmIds);
         }
 
-        filmStorage.findById(film.getId())
-                .orElseThrow(() -> new NotFoundException("Фильм с id = " + film.getId() + " не найден"));
-
-        return filmStorage.update(film);
+        return updatedFilm;
     }
 
     public Film findById(Long id) {
@@ -97,83 +171,229 @@ public class FilmService {
     }
 
     public Film addLike(Long filmId, Long userId) {
-        Film film = findById(filmId);
+        checkFilmAndUserExist(filmId, userId);
 
-        userStorage.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-
-        film.getLikes().add(userId);
+        if (filmStorage.addLike(filmId, userId)) {
+            popularFilmsIndex.addLike(filmId);
+            filmLikeIndex.addLike(filmId, userId);
+            filmCooccurrenceIndex.addLike(filmId, userId);
+        }
 
         feedService.create(userId, filmId, EventTypes.LIKE, Operations.ADD);
-        return filmStorage.update(film);
+        return findById(filmId);
     }
 
     public void addRate(Long filmId, Long userId, Float rate) {
-        Film film = findById(filmId);
+        checkFilmAndUserExist(filmId, userId);
 
-        userStorage.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-
-        film.getLikes().add(userId);
-        film.setRate(film.getRate() + rate);
+        if (rate == null || !(rate >= MIN_RATE && rate <= MAX_RATE)) {
+            throw new ValidationException("Оценка должна быть от " + MIN_RATE + " до " + MAX_RATE);
+        }
 
-        filmStorage.update(film);
+        if (filmStorage.addRate(filmId, userId, rate)) {
+            popularFilmsIndex.addLike(filmId);
+            filmLikeIndex.addLike(filmId, userId);
+            filmCooccurrenceIndex.addLike(filmId, userId);
+        }
     }
 
     public void removeLike(Long filmId, Long userId) {
-        Film film = findById(filmId);
-
-        userStorage.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
+        checkFilmAndUserExist(filmId, userId);
 
-        film.getLikes().remove(userId);
+        if (filmStorage.removeLike(filmId, userId)) {
+            popularFilmsIndex.removeLike(filmId);
+            filmLikeIndex.removeLike(filmId, userId);
+            filmCooccurrenceIndex.removeLike(filmId, userId);
+        }
 
-        filmStorage.update(film);
         feedService.create(userId, filmId, EventTypes.LIKE, Operations.REMOVE);
     }
 
     public List<Film> getPopularFilms(int count, Long genreId, Integer year) {
-        if (genreId != null && year != null) {
-            return filmStorage.getPopularFilmsByGenreYear(genreId, year, count);
-        } else if (genreId != null) {
-            return filmStorage.getPopularFilmsByGenre(genreId, count);
-        } else if (year != null) {
-            return filmStorage.getPopularFilmsByYear(year, count);
-        } else {
-            return filmStorage.getPopularFilms(count);
+        return findByIdsInOrder(popularFilmsIndex.getTopFilmIds(count, genreId, year));
+    }
+
+    public List<Film> getTopRatedFilms(int count) {
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException("Количество фильмов должно быть от 1 до " + MAX_PAGE_SIZE);
         }
+
+        return filmStorage.getTopRatedFilms(count, ratingPriorVotes);
     }
 
-    public List<Film> getFilmsByDirector(Long directorId, DirectorSortBy sortBy) {
+    public List<Film> getFilmsByDirector(Long directorId, DirectorSortBy sortBy, int offset, Integer limit) {
         directorService.getDirectorById(directorId);
 
-        List<Film> films = filmStorage.getFilmsByDirector(directorId);
+        if (offset < 0) {
+            throw new ValidationException("Смещение не может быть отрицательным");
+        }
 
-        if (sortBy.equals(DirectorSortBy.LIKES)) {
-            return films.stream()
-                    .sorted((f1, f2) -> f2.getLikes().size() - f1.getLikes().size()).toList();
-        } else if (sortBy.equals(DirectorSortBy.RATE)) {
-            return films.stream()
-                    .sorted((f1, f2) -> (int) (f2.getRate() - f1.getRate())).toList();
+        if (limit != null && (limit <= 0 || limit > MAX_PAGE_SIZE)) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
         }
 
-        return films.stream().sorted(Comparator.comparingInt(f -> f.getReleaseDate().getYear())).toList();
+        return filmStorage.getFilmsByDirector(directorId, sortBy, offset, limit != null ? limit : Integer.MAX_VALUE);
     }
 
 
     public List<Film> searchFilms(String query, List<SearchBy> byList) {
-        return filmStorage.searchFilms(query, byList);
+        Set<Long> filmIds = filmSearchIndex.search(query, byList);
+        Map<Long, Integer> likes = popularFilmsIndex.getLikes(filmIds);
+        Map<Long, LocalDate> releaseDates = filmSearchIndex.getReleaseDates(filmIds);
+
+        List<Long> rankedIds = filmIds.stream()
+                .filter(id -> releaseDates.get(id) != null)
+                .sorted(Comparator.comparing((Long id) -> likes.get(id)).reversed()
+                        .thenComparing(releaseDates::get)
+                        .thenComparing(Comparator.reverseOrder()))
+                .toList();
+
+        return findByIdsInOrder(rankedIds);
+    }
+
+    public List<Film> getSimilarFilms(Long filmId, int count) {
+        if (!filmStorage.existsById(filmId)) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+
+        if (count <= 0 || count > FilmCooccurrenceIndex.MAX_NEIGHBOURS) {
+            throw new ValidationException("Количество похожих фильмов должно быть от 1 до " +
+                    FilmCooccurrenceIndex.MAX_NEIGHBOURS);
+        }
+
+        return findByIdsInOrder(filmCooccurrenceIndex.getSimilarFilmIds(filmId, count));
     }
 
     public void deleteFilm(Long id) {
         filmStorage.findById(id)
                 .orElseThrow(() -> new NotFoundException("Фильм с id = " + id + " не найден"));
         filmStorage.delete(id);
+        popularFilmsIndex.remove(id);
+        filmSearchIndex.removeFilm(id);
+        filmCooccurrenceIndex.removeFilm(id);
+        filmLikeIndex.removeFilm(id);
+    }
+
+    public Map<String, Long> getCacheStats() {
+        return filmCache.getStats();
     }
 
     public int getLikesCount(Long filmId) {
-        Film film = findById(filmId);
-        return film.getLikes().size();
+        if (!filmStorage.existsById(filmId)) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+        return filmLikeIndex.countLikes(filmId);
+    }
+
+    private void checkFilmAndUserExist(Long filmId, Long userId) {
+        if (!filmStorage.existsById(filmId)) {
+            throw new NotFoundException("Фильм с id = " + filmId + " не найден");
+        }
+
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+    }
+
+    private List<Film> findByIdsInOrder(List<Long> ids) {
+        Map<Long, Film> films = filmStorage.findByIds(new HashSet<>(ids)).stream()
+                .collect(Collectors.toMap(Film::getId, film -> film));
+
+        return ids.stream()
+                .map(films::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    private void normalizeImportedFilm(Film film) {
+        film.setId(null);
+        film.setLikes(new HashSet<>());
+        film.setRate(0f);
+
+        if (film.getGenres() == null) {
+            film.setGenres(new HashSet<>());
+        }
+
+        if (film.getDirectors() == null) {
+            film.setDirectors(new HashSet<>());
+        }
+    }
+
+    private void importBatch(List<Film> batch, List<Integer> batchRows, FilmImportResult result) {
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        try {
+            saveImported(batch);
+            result.setImported(result.getImported() + batch.size());
+        } catch (DataAccessException e) {
+            log.warn("Не удалось сохранить пакет фильмов, сохраняем по одному: {}", e.getMessage());
+
+            for (int i = 0; i < batch.size(); i++) {
+                try {
+                    saveImported(List.of(batch.get(i)));
+                    result.setImported(result.getImported() + 1);
+                } catch (DataAccessException rowError) {
+                    result.addError(batchRows.get(i),
+                            "Не удалось сохранить фильм: " + rowError.getMostSpecificCause().getMessage());
+                }
+            }
+        }
+
+        batch.clear();
+        batchRows.clear();
+    }
+
+    private void saveImported(List<Film> films) {
+        for (Film film : filmStorage.createAll(films)) {
+            registerFilm(film);
+        }
+    }
+
+    private void registerFilm(Film film) {
+        popularFilmsIndex.put(film);
+        filmSearchIndex.putFilm(film);
+        filmLikeIndex.putFilm(film.getId(), film.getLikes());
+        filmCooccurrenceIndex.putFilm(film.getId(), Set.of());
+    }
+
+    private void validateFilm(Film film) {
+        validateFilmReleaseDate(film);
+
+        if (film.getMpa() != null && film.getMpa().getId() != null) {
+            mpaService.getMPAById(film.getMpa().getId());
+        }
+
+        if (film.getGenres() != null && !film.getGenres().isEmpty()) {
+            Set<Long> genreIds = film.getGenres().stream()
+                    .map(Genre::getId)
+                    .collect(Collectors.toSet());
+            genreService.validateGenresExist(genreIds);
+        }
+
+        if (film.getDirectors() != null && !film.getDirectors().isEmpty()) {
+            Set<Long> directorIds = film.getDirectors().stream()
+                    .map(Director::getId)
+                    .collect(Collectors.toSet());
+            directorService.validateDirectorsExist(directorIds);
+        }
+    }
+
+    private void validateImportedFilm(Film film) {
+        Set<ConstraintViolation<Film>> violations = validator.validate(film);
+        if (!violations.isEmpty()) {
+            throw new FilmValidationException(violations.stream()
+                    .map(ConstraintViolation::getMessage)
+                    .sorted()
+                    .collect(Collectors.joining("; ")));
+        }
+
+        if (film.getMpa() == null || film.getMpa().getId() == null) {
+            throw new FilmValidationException("Рейтинг MPA должен быть указан");
+        }
+
+        validateFilm(film);
     }
 
     private void validateFilmReleaseDate(Film film) {
@@ -183,11 +403,28 @@ public class FilmService {
     }
 
     public List<Film> getCommonFilms(Long userId, Long friendId) {
-        userStorage.findById(userId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + userId + " не найден"));
-        userStorage.findById(friendId)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + friendId + " не найден"));
+        return getCommonFilms(List.of(userId, friendId));
+    }
+
+    public List<Film> getCommonFilms(List<Long> userIds) {
+        if (userIds.size() < 2) {
+            throw new ValidationException("Для поиска общих фильмов нужно указать хотя бы двух пользователей");
+        }
+
+        for (Long userId : userIds) {
+            if (!userStorage.existsById(userId)) {
+                throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+            }
+        }
+
+        Set<Long> filmIds = filmLikeIndex.getCommonFilmIds(userIds);
+        Map<Long, Integer> likes = popularFilmsIndex.getLikes(filmIds);
+
+        List<Long> rankedIds = filmIds.stream()
+                .sorted(Comparator.comparing((Long id) -> likes.get(id)).reversed()
+                        .thenComparing(Comparator.naturalOrder()))
+                .toList();
 
-        return filmStorage.findCommonFilms(userId, friendId);
+        return findByIdsInOrder(rankedIds);
     }
 }
\ No newline at end of file
@@ -0,0 +1,317 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.storage.user.UserStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class FriendshipIndex {
+    private static final long[] EMPTY = new long[0];
+    private static final int MAX_TRAVERSED_EDGES = 1_000_000;
+
+    private final UserStorage userStorage;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, long[]> friendsByUser = new HashMap<>();
+    private final Map<Long, long[]> followersByUser = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        Map<Long, Set<Long>> friendships = userStorage.getFriendIdsByUsers();
+        Map<Long, List<Long>> followers = new HashMap<>();
+        long total = 0;
+
+        lock.writeLock().lock();
+        try {
+            friendsByUser.clear();
+            followersByUser.clear();
+
+            for (Map.Entry<Long, Set<Long>> entry : friendships.entrySet()) {
+                friendsByUser.put(entry.getKey(), toSortedArray(entry.getValue()));
+                for (Long friendId : entry.getValue()) {
+                    followers.computeIfAbsent(friendId, k -> new ArrayList<>()).add(entry.getKey());
+                }
+                total += entry.getValue().size();
+            }
+
+            followers.forEach((userId, followerIds) -> followersByUser.put(userId, toSortedArray(followerIds)));
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс дружбы построен: {} пользователей, {} связей", friendsByUser.size(), total);
+    }
+
+    public void addFriend(Long userId, Long friendId) {
+        lock.writeLock().lock();
+        try {
+            link(userId, friendId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeFriend(Long userId, Long friendId) {
+        lock.writeLock().lock();
+        try {
+            unlink(userId, friendId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putFriends(Long userId, Set<Long> friendIds) {
+        lock.writeLock().lock();
+        try {
+            for (long friendId : friendsByUser.getOrDefault(userId, EMPTY)) {
+                if (!friendIds.contains(friendId)) {
+                    unlink(userId, friendId);
+                }
+            }
+            friendIds.forEach(friendId -> link(userId, friendId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void removeUser(Long userId) {
+        lock.writeLock().lock();
+        try {
+            for (long friendId : friendsByUser.getOrDefault(userId, EMPTY)) {
+                unlink(userId, friendId);
+            }
+            for (long followerId : followersByUser.getOrDefault(userId, EMPTY)) {
+                unlink(followerId, userId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public Set<Long> getFriendIds(Long userId) {
+        lock.readLock().lock();
+        try {
+            Set<Long> friendIds = new HashSet<>();
+            for (long friendId : friendsByUser.getOrDefault(userId, EMPTY)) {
+                friendIds.add(friendId);
+            }
+            return friendIds;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getCommonFriendIds(Long userId, Long otherId) {
+        lock.readLock().lock();
+        try {
+            long[] friendIds = friendsByUser.getOrDefault(userId, EMPTY);
+            long[] otherFriendIds = friendsByUser.getOrDefault(otherId, EMPTY);
+
+            long[] common = friendIds.length <= otherFriendIds.length
+                    ? intersect(friendIds, otherFriendIds)
+                    : intersect(otherFriendIds, friendIds);
+
+            return Arrays.stream(common).boxed().toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public List<Long> getSuggestedFriendIds(Long userId, int count) {
+        lock.readLock().lock();
+        try {
+            long[] friendIds = friendsByUser.getOrDefault(userId, EMPTY);
+            MutualCounter counter = new MutualCounter(Math.max(16, friendIds.length * 4));
+            long traversed = 0;
+
+            for (long friendId : friendIds) {
+                for (long candidateId : followersByUser.getOrDefault(friendId, EMPTY)) {
+                    if (candidateId != userId && Arrays.binarySearch(friendIds, candidateId) < 0) {
+                        counter.increment(candidateId);
+                    }
+                }
+
+                traversed += followersByUser.getOrDefault(friendId, EMPTY).length;
+                if (traversed >= MAX_TRAVERSED_EDGES) {
+                    break;
+                }
+            }
+
+            return counter.top(count);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private long[] intersect(long[] smaller, long[] larger) {
+        long[] result = new long[smaller.length];
+        int count = 0;
+        int low = 0;
+
+        for (long value : smaller) {
+            if (low >= larger.length) {
+                break;
+            }
+
+            int bound = 1;
+            while (low + bound < larger.length && larger[low + bound] < value) {
+                bound <<= 1;
+            }
+
+            int position = Arrays.binarySearch(larger, low, Math.min(low + bound + 1, larger.length), value);
+            if (position >= 0) {
+                result[count++] = value;
+                low = position + 1;
+            } else {
+                low = -position - 1;
+            }
+        }
+
+        return Arrays.copyOf(result, count);
+    }
+
+    private void link(long userId, long friendId) {
+        friendsByUser.put(userId, insert(friendsByUser.getOrDefault(userId, EMPTY), friendId));
+        followersByUser.put(friendId, insert(followersByUser.getOrDefault(friendId, EMPTY), userId));
+    }
+
+    private void unlink(long userId, long friendId) {
+        remove(friendsByUser, userId, friendId);
+        remove(followersByUser, friendId, userId);
+    }
+
+    private void remove(Map<Long, long[]> adjacency, long key, long value) {
+        long[] values = adjacency.get(key);
+        if (values == null) {
+            return;
+        }
+
+        int position = Arrays.binarySearch(values, value);
+        if (position < 0) {
+            return;
+        }
+
+        if (values.length == 1) {
+            adjacency.remove(key);
+            return;
+        }
+
+        long[] updated = new long[values.length - 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        System.arraycopy(values, position + 1, updated, position, values.length - position - 1);
+        adjacency.put(key, updated);
+    }
+
+    private long[] insert(long[] values, long value) {
+        int position = Arrays.binarySearch(values, value);
+        if (position >= 0) {
+            return values;
+        }
+
+        position = -position - 1;
+        long[] updated = new long[values.length + 1];
+        System.arraycopy(values, 0, updated, 0, position);
+        updated[position] = value;
+        System.arraycopy(values, position, updated, position + 1, values.length - position);
+        return updated;
+    }
+
+    private long[] toSortedArray(Collection<Long> values) {
+        long[] array = values.stream().mapToLong(Long::longValue).toArray();
+        Arrays.sort(array);
+        return array;
+    }
+
+    private static final class MutualCounter {
+        private static final long FREE = Long.MIN_VALUE;
+
+        private long[] keys;
+        private int[] counts;
+        private int size = 0;
+
+        MutualCounter(int expectedSize) {
+            int capacity = Integer.highestOneBit(Math.max(expectedSize, 2) * 2 - 1);
+            keys = new long[capacity];
+            counts = new int[capacity];
+            Arrays.fill(keys, FREE);
+        }
+
+        void increment(long key) {
+            int mask = keys.length - 1;
+            int slot = mix(key) & mask;
+
+            while (keys[slot] != FREE && keys[slot] != key) {
+                slot = (slot + 1) & mask;
+            }
+
+            if (keys[slot] == FREE) {
+                keys[slot] = key;
+                size++;
+            }
+            counts[slot]++;
+
+            if (size * 2 > keys.length) {
+                grow();
+            }
+        }
+
+        List<Long> top(int count) {
+            PriorityQueue<long[]> heap = new PriorityQueue<>(count + 1, (left, right) -> left[1] != right[1]
+                    ? Long.compare(left[1], right[1])
+                    : Long.compare(right[0], left[0]));
+
+            for (int slot = 0; slot < keys.length; slot++) {
+                if (keys[slot] == FREE) {
+                    continue;
+                }
+
+                heap.offer(new long[]{keys[slot], counts[slot]});
+                if (heap.size() > count) {
+                    heap.poll();
+                }
+            }
+
+            Long[] result = new Long[heap.size()];
+            for (int i = result.length - 1; i >= 0; i--) {
+                result[i] = heap.poll()[0];
+            }
+            return List.of(result);
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            int[] oldCounts = counts;
+
+            keys = new long[oldKeys.length * 2];
+            counts = new int[oldCounts.length * 2];
+            Arrays.fill(keys, FREE);
+
+            int mask = keys.length - 1;
+            for (int i = 0; i < oldKeys.length; i++) {
+                if (oldKeys[i] == FREE) {
+                    continue;
+                }
+
+                int slot = mix(oldKeys[i]) & mask;
+                while (keys[slot] != FREE) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                counts[slot] = oldCounts[i];
+            }
+        }
+
+        private static int mix(long key) {
+            long hash = key * 0x9E3779B97F4A7C15L;
+            return (int) (hash ^ (hash >>> 32));
+        }
+    }
+}
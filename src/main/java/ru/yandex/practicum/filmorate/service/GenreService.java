@@ -3,26 +3,24 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Genre;
-import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
 
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
 
 @Service
 public class GenreService {
-    private final GenreDbStorage genreDbStorage;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
-    public GenreService(GenreDbStorage genreDbStorage) {
-        this.genreDbStorage = genreDbStorage;
+    public GenreService(ReferenceDataRegistry referenceDataRegistry) {
+        this.referenceDataRegistry = referenceDataRegistry;
     }
 
     public List<Genre> getAllGenres() {
-        return genreDbStorage.findAll();
+        return referenceDataRegistry.getGenres();
     }
 
     public Genre getGenreById(Long id) {
-        return genreDbStorage.findById(id)
+        return referenceDataRegistry.findGenre(id)
                 .orElseThrow(() -> new NotFoundException("Жанр с id = " + id + " не найден"));
     }
 
@@ -31,17 +29,10 @@ public class GenreService {
             return;
         }
 
-        List<Genre> existingGenres = genreDbStorage.findByIds(genreIds);
-        Set<Long> foundIds = existingGenres.stream()
-                .map(Genre::getId)
-                .collect(Collectors.toSet());
-
-        Set<Long> missingIds = genreIds.stream()
-                .filter(id -> !foundIds.contains(id))
-                .collect(Collectors.toSet());
+        Set<Long> missingIds = referenceDataRegistry.findMissingGenreIds(genreIds);
 
         if (!missingIds.isEmpty()) {
             throw new NotFoundException("Жанры с id " + missingIds + " не найдены");
         }
     }
-}
\ No newline at end of file
+}
@@ -4,21 +4,20 @@ import lombok.RequiredArgsConstructor;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.MPA;
-import ru.yandex.practicum.filmorate.storage.mpa.MPADbStorage;
 
 import java.util.List;
 
 @Service
 @RequiredArgsConstructor
 public class MPAService {
-    private final MPADbStorage mpaDbStorage;
+    private final ReferenceDataRegistry referenceDataRegistry;
 
     public List<MPA> getAllMPA() {
-        return mpaDbStorage.findAll();
+        return referenceDataRegistry.getMpaRatings();
     }
 
     public MPA getMPAById(Long id) {
-        return mpaDbStorage.findById(id)
+        return referenceDataRegistry.findMpa(id)
                 .orElseThrow(() -> new NotFoundException("MPA рейтинг с id = " + id + " не найден"));
     }
 }
\ No newline at end of file
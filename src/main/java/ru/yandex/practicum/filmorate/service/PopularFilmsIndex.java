@@ -0,0 +1,192 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
+
+import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.stream.Collectors;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class PopularFilmsIndex {
+    private final FilmStorage filmStorage;
+
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<Long, FilmPopularity> films = new HashMap<>();
+    private final NavigableSet<Rank> overall = new TreeSet<>();
+    private final Map<Long, NavigableSet<Rank>> byGenre = new HashMap<>();
+    private final Map<Integer, NavigableSet<Rank>> byYear = new HashMap<>();
+    private final Map<GenreYear, NavigableSet<Rank>> byGenreYear = new HashMap<>();
+
+    @PostConstruct
+    public void rebuild() {
+        List<FilmPopularity> popularity = filmStorage.getFilmPopularity();
+
+        lock.writeLock().lock();
+        try {
+            films.clear();
+            overall.clear();
+            byGenre.clear();
+            byYear.clear();
+            byGenreYear.clear();
+            popularity.forEach(this::link);
+        } finally {
+            lock.writeLock().unlock();
+        }
+
+        log.info("Индекс популярных фильмов построен: {} фильмов", popularity.size());
+    }
+
+    public void put(Film film) {
+        FilmPopularity popularity = new FilmPopularity(
+                film.getId(),
+                film.getLikes().size(),
+                film.getReleaseDate().getYear(),
+                film.getGenres().stream().map(Genre::getId).collect(Collectors.toSet())
+        );
+
+        lock.writeLock().lock();
+        try {
+            unlink(films.get(film.getId()));
+            link(popularity);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Long filmId) {
+        lock.writeLock().lock();
+        try {
+            unlink(films.get(filmId));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addLike(Long filmId) {
+        changeLikes(filmId, 1);
+    }
+
+    public void removeLike(Long filmId) {
+        changeLikes(filmId, -1);
+    }
+
+    public Map<Long, Integer> getLikes(Collection<Long> filmIds) {
+        Map<Long, Integer> result = new HashMap<>();
+
+        lock.readLock().lock();
+        try {
+            for (Long filmId : filmIds) {
+                FilmPopularity film = films.get(filmId);
+                result.put(filmId, film != null ? film.getLikes() : 0);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        return result;
+    }
+
+    public List<Long> getTopFilmIds(int count, Long genreId, Integer year) {
+        lock.readLock().lock();
+        try {
+            NavigableSet<Rank> ranks;
+            if (genreId != null && year != null) {
+                ranks = byGenreYear.get(new GenreYear(genreId, year));
+            } else if (genreId != null) {
+                ranks = byGenre.get(genreId);
+            } else if (year != null) {
+                ranks = byYear.get(year);
+            } else {
+                ranks = overall;
+            }
+
+            if (ranks == null) {
+                return List.of();
+            }
+
+            return ranks.stream()
+                    .limit(Math.max(count, 0))
+                    .map(Rank::filmId)
+                    .toList();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void changeLikes(Long filmId, int delta) {
+        lock.writeLock().lock();
+        try {
+            FilmPopularity film = films.get(filmId);
+            if (film == null) {
+                return;
+            }
+
+            unlink(film);
+            film.setLikes(Math.max(film.getLikes() + delta, 0));
+            link(film);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void link(FilmPopularity film) {
+        Rank rank = new Rank(film.getFilmId(), film.getLikes());
+
+        films.put(film.getFilmId(), film);
+        overall.add(rank);
+        byYear.computeIfAbsent(film.getYear(), k -> new TreeSet<>()).add(rank);
+        for (Long genreId : film.getGenreIds()) {
+            byGenre.computeIfAbsent(genreId, k -> new TreeSet<>()).add(rank);
+            byGenreYear.computeIfAbsent(new GenreYear(genreId, film.getYear()), k -> new TreeSet<>()).add(rank);
+        }
+    }
+
+    private void unlink(FilmPopularity film) {
+        if (film == null) {
+            return;
+        }
+
+        Rank rank = new Rank(film.getFilmId(), film.getLikes());
+
+        films.remove(film.getFilmId());
+        overall.remove(rank);
+        removeFromBucket(byYear, film.getYear(), rank);
+        for (Long genreId : film.getGenreIds()) {
+            removeFromBucket(byGenre, genreId, rank);
+            removeFromBucket(byGenreYear, new GenreYear(genreId, film.getYear()), rank);
+        }
+    }
+
+    private <K> void removeFromBucket(Map<K, NavigableSet<Rank>> buckets, K key, Rank rank) {
+        NavigableSet<Rank> bucket = buckets.get(key);
+        if (bucket == null) {
+            return;
+        }
+
+        bucket.remove(rank);
+        if (bucket.isEmpty()) {
+            buckets.remove(key);
+        }
+    }
+
+    private record Rank(long filmId, int likes) implements Comparable<Rank> {
+        @Override
+        public int compareTo(Rank other) {
+            int byLikes = Integer.compare(other.likes, likes);
+            return byLikes != 0 ? byLikes : Long.compare(filmId, other.filmId);
+        }
+    }
+
+    private record GenreYear(long genreId, int year) {
+    }
+}
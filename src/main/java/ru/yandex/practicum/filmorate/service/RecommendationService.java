@@ -1,54 +1,121 @@
 package ru.yandex.practicum.filmorate.service;
 
-import lombok.RequiredArgsConstructor;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.Film;
-
 import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserDbStorage;
 
-import java.util.*;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.Collectors;
 
+@Slf4j
 @Service
-@RequiredArgsConstructor
 public class RecommendationService {
     private final UserDbStorage userStorage;
     private final FilmStorage filmStorage;
+    private final FilmLikeIndex filmLikeIndex;
+    private final ForkJoinPool precomputePool;
+    private final long maxStaleChanges;
+    private final AtomicReference<Snapshot> snapshot =
+            new AtomicReference<>(new Snapshot(Map.of(), -1, null, Duration.ZERO));
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    @Autowired
+    public RecommendationService(UserDbStorage userStorage, FilmStorage filmStorage, FilmLikeIndex filmLikeIndex,
+                                 @Value("${filmorate.recommendations.parallelism:0}") int parallelism,
+                                 @Value("${filmorate.recommendations.max-stale-changes:1000}") long maxStaleChanges) {
+        this.userStorage = userStorage;
+        this.filmStorage = filmStorage;
+        this.filmLikeIndex = filmLikeIndex;
+        this.precomputePool = new ForkJoinPool(parallelism > 0 ? parallelism
+                : Math.max(1, Runtime.getRuntime().availableProcessors() / 2));
+        this.maxStaleChanges = maxStaleChanges;
+    }
 
     public List<Film> getRecommendations(Long userId) {
-        userStorage.findById(userId).orElseThrow(() -> new NotFoundException("Пользователь с ID " + userId + " не найден"));
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с ID " + userId + " не найден");
+        }
 
-        Map<Long, Set<Long>> userLikes = filmStorage.getFilmLikesByUsers();
-        Set<Long> targetUserLikes = userLikes.getOrDefault(userId, Collections.emptySet());
+        Snapshot current = snapshot.get();
+        Set<Long> filmIds = current.filmIdsByUser().get(userId);
 
-        if (targetUserLikes.isEmpty()) {
-            return Collections.emptyList();
+        if (filmIds == null || filmLikeIndex.getLastModified(userId) > current.version()) {
+            filmIds = filmLikeIndex.getRecommendedFilmIds(userId);
         }
 
-        Long mostSimilarUserId = null;
-        int maxCommon = 0;
-
-        for (Map.Entry<Long, Set<Long>> entry : userLikes.entrySet()) {
-            Long otherUserId = entry.getKey();
-            if (otherUserId.equals(userId)) continue;
+        if (current.version() >= 0 && filmLikeIndex.getVersion() - current.version() > maxStaleChanges
+                && !refreshing.get()) {
+            CompletableFuture.runAsync(this::refreshSnapshot, precomputePool);
+        }
 
-            Set<Long> intersection = new HashSet<>(targetUserLikes);
-            intersection.retainAll(entry.getValue());
+        return filmStorage.findByIds(filmIds);
+    }
 
-            if (intersection.size() > maxCommon) {
-                maxCommon = intersection.size();
-                mostSimilarUserId = otherUserId;
-            }
+    @Scheduled(initialDelayString = "${filmorate.recommendations.initial-delay:PT30S}",
+            fixedDelayString = "${filmorate.recommendations.refresh-interval:PT10M}")
+    public void refreshSnapshot() {
+        if (!refreshing.compareAndSet(false, true)) {
+            return;
         }
 
-        if (mostSimilarUserId == null) {
-            return Collections.emptyList();
+        try {
+            computeSnapshot();
+        } finally {
+            refreshing.set(false);
         }
+    }
+
+    private void computeSnapshot() {
+        long startedAt = System.nanoTime();
+        long version = filmLikeIndex.getVersion();
+        List<Long> userIds = filmLikeIndex.getUserIds();
 
-        Set<Long> similarUserLikes = new HashSet<>(userLikes.get(mostSimilarUserId));
-        similarUserLikes.removeAll(targetUserLikes);
+        Map<Long, Set<Long>> filmIdsByUser = precomputePool.submit(() -> userIds.parallelStream()
+                .collect(Collectors.toUnmodifiableMap(Function.identity(), filmLikeIndex::getRecommendedFilmIds)))
+                .join();
+
+        Duration duration = Duration.ofNanos(System.nanoTime() - startedAt);
+        snapshot.set(new Snapshot(filmIdsByUser, version, Instant.now(), duration));
+
+        log.info("Рекомендации пересчитаны: {} пользователей за {} мс", userIds.size(), duration.toMillis());
+    }
+
+    public Map<String, Object> getSnapshotStats() {
+        Snapshot current = snapshot.get();
+        Map<String, Object> stats = new LinkedHashMap<>();
+
+        stats.put("users", current.filmIdsByUser().size());
+        stats.put("computedAt", current.computedAt());
+        stats.put("durationMs", current.duration().toMillis());
+        stats.put("ageMs", current.computedAt() != null
+                ? Duration.between(current.computedAt(), Instant.now()).toMillis() : null);
+        stats.put("changesSince", current.version() >= 0 ? filmLikeIndex.getVersion() - current.version() : null);
+        return stats;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        precomputePool.shutdownNow();
+    }
 
-        return filmStorage.findByIds(similarUserLikes);
+    private record Snapshot(Map<Long, Set<Long>> filmIdsByUser, long version, Instant computedAt,
+                            Duration duration) {
     }
 }
@@ -0,0 +1,121 @@
+package ru.yandex.practicum.filmorate.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Director;
+import ru.yandex.practicum.filmorate.model.Genre;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.storage.director.DirectorDbStorage;
+import ru.yandex.practicum.filmorate.storage.genre.GenreDbStorage;
+import ru.yandex.practicum.filmorate.storage.mpa.MPADbStorage;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ReferenceDataRegistry {
+    private final GenreDbStorage genreStorage;
+    private final MPADbStorage mpaStorage;
+    private final DirectorDbStorage directorStorage;
+
+    private volatile Genre[] genresById = new Genre[0];
+    private volatile List<Genre> genres = List.of();
+    private volatile MPA[] mpaById = new MPA[0];
+    private volatile List<MPA> mpaRatings = List.of();
+    private final ConcurrentNavigableMap<Long, Director> directors = new ConcurrentSkipListMap<>();
+
+    @PostConstruct
+    public void load() {
+        List<Genre> loadedGenres = genreStorage.findAll();
+        genresById = toDenseArray(loadedGenres, Genre::getId, Genre[]::new);
+        genres = List.copyOf(loadedGenres);
+
+        List<MPA> loadedMpa = mpaStorage.findAll();
+        mpaById = toDenseArray(loadedMpa, MPA::getId, MPA[]::new);
+        mpaRatings = List.copyOf(loadedMpa);
+
+        directors.clear();
+        directorStorage.getAll().forEach(director -> directors.put(director.getId(), director));
+
+        log.info("Справочники загружены: {} жанров, {} рейтингов MPA, {} режиссёров",
+                genres.size(), mpaRatings.size(), directors.size());
+    }
+
+    public List<Genre> getGenres() {
+        return genres;
+    }
+
+    public Optional<Genre> findGenre(Long id) {
+        return Optional.ofNullable(lookup(genresById, id));
+    }
+
+    public Set<Long> findMissingGenreIds(Set<Long> ids) {
+        Genre[] byId = genresById;
+        Set<Long> missingIds = new HashSet<>();
+        for (Long id : ids) {
+            if (lookup(byId, id) == null) {
+                missingIds.add(id);
+            }
+        }
+        return missingIds;
+    }
+
+    public List<MPA> getMpaRatings() {
+        return mpaRatings;
+    }
+
+    public Optional<MPA> findMpa(Long id) {
+        return Optional.ofNullable(lookup(mpaById, id));
+    }
+
+    public List<Director> getDirectors() {
+        return List.copyOf(directors.values());
+    }
+
+    public Optional<Director> findDirector(Long id) {
+        return Optional.ofNullable(id != null ? directors.get(id) : null);
+    }
+
+    public Set<Long> findMissingDirectorIds(Set<Long> ids) {
+        Set<Long> missingIds = new HashSet<>();
+        for (Long id : ids) {
+            if (id == null || !directors.containsKey(id)) {
+                missingIds.add(id);
+            }
+        }
+        return missingIds;
+    }
+
+    public void putDirector(Director director) {
+        directors.put(director.getId(), director);
+    }
+
+    public void removeDirector(Long id) {
+        directors.remove(id);
+    }
+
+    private <T> T[] toDenseArray(List<T> items, Function<T, Long> idGetter, IntFunction<T[]> arrayFactory) {
+        int size = items.stream()
+                .mapToInt(item -> Math.toIntExact(idGetter.apply(item)) + 1)
+                .max()
+                .orElse(0);
+
+        T[] array = arrayFactory.apply(size);
+        items.forEach(item -> array[Math.toIntExact(idGetter.apply(item))] = item);
+        return array;
+    }
+
+    private <T> T lookup(T[] array, Long id) {
+        if (id == null || id < 0 || id >= array.length) {
+            return null;
+        }
+        return array[id.intValue()];
+    }
+}
\ No newline at end of file
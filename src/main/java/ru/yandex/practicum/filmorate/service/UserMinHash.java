@@ -0,0 +1,148 @@
+package ru.yandex.practicum.filmorate.service;
+
+import java.util.*;
+
+class UserMinHash {
+    static final int DEFAULT_BANDS = 24;
+    static final int DEFAULT_ROWS = 1;
+    private static final long SEED = 0x5DEECE66DL;
+
+    private final int bands;
+    private final int rows;
+    private final int signatureSize;
+    private final long[] multipliers;
+    private final long[] increments;
+    private final Map<Long, long[]> signatures = new HashMap<>();
+    private final List<Map<Long, Set<Long>>> buckets;
+
+    UserMinHash() {
+        this(DEFAULT_BANDS, DEFAULT_ROWS);
+    }
+
+    UserMinHash(int bands, int rows) {
+        this.bands = bands;
+        this.rows = rows;
+        this.signatureSize = bands * rows;
+        this.multipliers = new long[signatureSize];
+        this.increments = new long[signatureSize];
+        this.buckets = new ArrayList<>(bands);
+
+        Random random = new Random(SEED);
+        for (int i = 0; i < signatureSize; i++) {
+            multipliers[i] = random.nextLong() | 1;
+            increments[i] = random.nextLong();
+        }
+
+        for (int band = 0; band < bands; band++) {
+            buckets.add(new HashMap<>());
+        }
+    }
+
+    void clear() {
+        signatures.clear();
+        buckets.forEach(Map::clear);
+    }
+
+    void put(long userId, long[] filmIds) {
+        remove(userId);
+
+        if (filmIds.length > 0) {
+            link(userId, signature(filmIds));
+        }
+    }
+
+    void add(long userId, long filmId) {
+        long[] signature = signatures.get(userId);
+        if (signature == null) {
+            link(userId, signature(new long[]{filmId}));
+            return;
+        }
+
+        long[] updated = signature.clone();
+        boolean changed = false;
+        for (int i = 0; i < signatureSize; i++) {
+            long hash = hash(i, filmId);
+            if (hash < updated[i]) {
+                updated[i] = hash;
+                changed = true;
+            }
+        }
+
+        if (changed) {
+            remove(userId);
+            link(userId, updated);
+        }
+    }
+
+    void remove(long userId) {
+        long[] signature = signatures.remove(userId);
+        if (signature == null) {
+            return;
+        }
+
+        for (int band = 0; band < bands; band++) {
+            Map<Long, Set<Long>> bandBuckets = buckets.get(band);
+            long key = bandKey(signature, band);
+            Set<Long> users = bandBuckets.get(key);
+            if (users != null) {
+                users.remove(userId);
+                if (users.isEmpty()) {
+                    bandBuckets.remove(key);
+                }
+            }
+        }
+    }
+
+    Set<Long> candidates(long userId, long[] filmIds) {
+        long[] signature = signatures.get(userId);
+        if (signature == null) {
+            signature = signature(filmIds);
+        }
+        Set<Long> result = new HashSet<>();
+
+        for (int band = 0; band < bands; band++) {
+            result.addAll(buckets.get(band).getOrDefault(bandKey(signature, band), Set.of()));
+        }
+
+        result.remove(userId);
+        return result;
+    }
+
+    private void link(long userId, long[] signature) {
+        signatures.put(userId, signature);
+        for (int band = 0; band < bands; band++) {
+            buckets.get(band).computeIfAbsent(bandKey(signature, band), k -> new HashSet<>()).add(userId);
+        }
+    }
+
+    private long[] signature(long[] filmIds) {
+        long[] signature = new long[signatureSize];
+        Arrays.fill(signature, Long.MAX_VALUE);
+
+        for (long filmId : filmIds) {
+            for (int i = 0; i < signatureSize; i++) {
+                signature[i] = Math.min(signature[i], hash(i, filmId));
+            }
+        }
+
+        return signature;
+    }
+
+    private long bandKey(long[] signature, int band) {
+        long key = band;
+        for (int row = 0; row < rows; row++) {
+            key = key * 31 + signature[band * rows + row];
+        }
+        return key;
+    }
+
+    private long hash(int i, long value) {
+        long x = value * multipliers[i] + increments[i];
+        x ^= x >>> 33;
+        x *= 0xff51afd7ed558ccdL;
+        x ^= x >>> 33;
+        x *= 0xc4ceb9fe1a85ec53L;
+        x ^= x >>> 33;
+        return x;
+    }
+}
@@ -3,35 +3,72 @@ package ru.yandex.practicum.filmorate.service;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
 import ru.yandex.practicum.filmorate.model.EventTypes;
 import ru.yandex.practicum.filmorate.model.Feed;
 import ru.yandex.practicum.filmorate.model.Operations;
 import ru.yandex.practicum.filmorate.model.User;
+import ru.yandex.practicum.filmorate.storage.film.FilmCache;
+import ru.yandex.practicum.filmorate.storage.film.FilmStorage;
 import ru.yandex.practicum.filmorate.storage.user.UserStorage;
 
 import java.util.*;
 
 @Service
 public class UserService {
+    private static final int MAX_PAGE_SIZE = 1000;
+
     private final UserStorage userStorage;
     private final FeedService feedService;
+    private final FilmStorage filmStorage;
+    private final PopularFilmsIndex popularFilmsIndex;
+    private final FilmLikeIndex filmLikeIndex;
+    private final FilmCooccurrenceIndex filmCooccurrenceIndex;
+    private final FilmCache filmCache;
+    private final FriendshipIndex friendshipIndex;
 
     @Autowired
-    public UserService(UserStorage userStorage, FeedService feedService) {
+    public UserService(UserStorage userStorage, FeedService feedService, FilmStorage filmStorage,
+                       PopularFilmsIndex popularFilmsIndex, FilmLikeIndex filmLikeIndex,
+                       FilmCooccurrenceIndex filmCooccurrenceIndex, FilmCache filmCache,
+                       FriendshipIndex friendshipIndex) {
         this.userStorage = userStorage;
         this.feedService = feedService;
+        this.filmStorage = filmStorage;
+        this.popularFilmsIndex = popularFilmsIndex;
+        this.filmLikeIndex = filmLikeIndex;
+        this.filmCooccurrenceIndex = filmCooccurrenceIndex;
+        this.filmCache = filmCache;
+        this.friendshipIndex = friendshipIndex;
     }
 
     public List<User> findAll() {
         return userStorage.findAll();
     }
 
+    public List<User> findPage(Long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
+        }
+
+        return userStorage.findPage(afterId != null ? afterId : 0L, limit);
+    }
+
     public User create(User user) {
         return userStorage.create(user);
     }
 
     public User update(User user) {
-        return userStorage.update(user);
+        User updatedUser = userStorage.update(user);
+
+        if (updatedUser.isFriendsSpecified()) {
+            friendshipIndex.putFriends(updatedUser.getId(),
+                    updatedUser.getFriends() != null ? updatedUser.getFriends() : Set.of());
+        } else {
+            updatedUser.setFriends(friendshipIndex.getFriendIds(updatedUser.getId()));
+        }
+
+        return updatedUser;
     }
 
     public User findById(Long id) {
@@ -53,6 +90,7 @@ public class UserService {
         }
 
         userStorage.addFriend(userId, friendId);
+        friendshipIndex.addFriend(userId, friendId);
         feedService.create(userId, friendId, EventTypes.FRIEND, Operations.ADD);
     }
 
@@ -70,35 +108,59 @@ public class UserService {
         }
 
         userStorage.removeFriend(userId, friendId);
+        friendshipIndex.removeFriend(userId, friendId);
         feedService.create(userId, friendId, EventTypes.FRIEND, Operations.REMOVE);
     }
 
     public List<User> getFriends(Long userId) {
-        User user = findById(userId);
-        List<User> friendList = new ArrayList<>();
+        return getFriends(userId, 0L, Integer.MAX_VALUE);
+    }
 
-        for (Long friendId : user.getFriends()) {
-            userStorage.findById(friendId).ifPresent(friendList::add);
+    public List<User> getFriendsPage(Long userId, Long afterId, int limit) {
+        if (limit <= 0 || limit > MAX_PAGE_SIZE) {
+            throw new ValidationException("Размер страницы должен быть от 1 до " + MAX_PAGE_SIZE);
         }
 
-        return friendList;
+        return getFriends(userId, afterId != null ? afterId : 0L, limit);
     }
 
     public List<User> getCommonFriends(Long userId, Long otherId) {
-        User user = findById(userId);
-        User otherUser = findById(otherId);
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+
+        if (!userStorage.existsById(otherId)) {
+            throw new NotFoundException("Пользователь с id = " + otherId + " не найден");
+        }
 
-        Set<Long> userFriendIds = new HashSet<>(user.getFriends()); // создаем копию
-        Set<Long> otherFriendIds = otherUser.getFriends();
+        return userStorage.findByIds(friendshipIndex.getCommonFriendIds(userId, otherId), true);
+    }
+
+    private List<User> getFriends(Long userId, Long afterId, int limit) {
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
+
+        return userStorage.findFriends(userId, afterId, limit);
+    }
 
-        userFriendIds.retainAll(otherFriendIds);
+    public List<User> getFriendSuggestions(Long userId, int count) {
+        if (!userStorage.existsById(userId)) {
+            throw new NotFoundException("Пользователь с id = " + userId + " не найден");
+        }
 
-        List<User> commonFriends = new ArrayList<>();
-        for (Long friendId : userFriendIds) {
-            userStorage.findById(friendId).ifPresent(commonFriends::add);
+        if (count <= 0 || count > MAX_PAGE_SIZE) {
+            throw new ValidationException("Количество рекомендаций должно быть от 1 до " + MAX_PAGE_SIZE);
         }
 
-        return commonFriends;
+        List<Long> suggestedIds = friendshipIndex.getSuggestedFriendIds(userId, count);
+        Map<Long, User> usersById = new HashMap<>();
+        userStorage.findByIds(suggestedIds, true).forEach(user -> usersById.put(user.getId(), user));
+
+        return suggestedIds.stream()
+                .map(usersById::get)
+                .filter(Objects::nonNull)
+                .toList();
     }
 
     public List<Feed> getAllFeedsByIdUser(Long id) {
@@ -112,8 +174,16 @@ public class UserService {
     }
 
     public void deleteUser(Long id) {
-        userStorage.findById(id)
-                .orElseThrow(() -> new NotFoundException("Пользователь с id = " + id + " не найден"));
+        if (!userStorage.existsById(id)) {
+            throw new NotFoundException("Пользователь с id = " + id + " не найден");
+        }
+
+        Set<Long> likedFilmIds = filmStorage.getLikedFilmIds(id);
         userStorage.delete(id);
+        likedFilmIds.forEach(popularFilmsIndex::removeLike);
+        filmLikeIndex.removeUser(id);
+        friendshipIndex.removeUser(id);
+        filmCooccurrenceIndex.removeUser(likedFilmIds);
+        filmCache.invalidate(likedFilmIds);
     }
 }
\ No newline at end of file
@@ -10,8 +10,6 @@ import ru.yandex.practicum.filmorate.model.Director;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
@@ -25,34 +23,15 @@ public class DirectorDbStorage {
         return jdbcTemplate.query(sql, this::mapRowToDirector);
     }
 
-    public Optional<Director> getById(Long id) {
-        String sql = "SELECT * FROM directors WHERE id = ?";
-
-        return jdbcTemplate.query(sql, this::mapRowToDirector, id).stream().findFirst();
-    }
-
-    public List<Director> findByIds(Set<Long> ids) {
-        if (ids == null || ids.isEmpty()) {
-            return List.of();
-        }
-
-        String inClause = String.join(",", ids.stream()
-                .map(String::valueOf)
-                .toArray(String[]::new));
-
-        String sql = "SELECT * FROM directors WHERE id IN (" + inClause + ")";
-        return jdbcTemplate.query(sql, this::mapRowToDirector);
-    }
-
     public Director create(Director director) {
         String sql = "INSERT INTO directors (id, name) VALUES (?, ?)";
 
         id++;
-        director.setId(id);
+        Director createdDirector = new Director(id, director.getName());
 
-        jdbcTemplate.update(sql, director.getId(), director.getName());
+        jdbcTemplate.update(sql, createdDirector.getId(), createdDirector.getName());
 
-        return director;
+        return createdDirector;
     }
 
     public Director update(Director director) {
@@ -70,11 +49,6 @@ public class DirectorDbStorage {
     }
 
     private Director mapRowToDirector(ResultSet rs, int rowNum) throws SQLException {
-        Director director = new Director();
-
-        director.setId(rs.getLong("id"));
-        director.setName(rs.getString("name"));
-
-        return director;
+        return new Director(rs.getLong("id"), rs.getString("name"));
     }
 }
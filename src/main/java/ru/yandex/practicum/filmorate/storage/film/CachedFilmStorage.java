@@ -0,0 +1,158 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+import ru.yandex.practicum.filmorate.model.DirectorSortBy;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
+
+import java.util.*;
+import java.util.function.Consumer;
+
+@Repository
+@Primary
+@RequiredArgsConstructor
+public class CachedFilmStorage implements FilmStorage {
+    private final FilmDbStorage filmDbStorage;
+    private final FilmCache filmCache;
+
+    @Override
+    public List<Film> findAll() {
+        return filmDbStorage.findAll();
+    }
+
+    @Override
+    public List<Film> findPage(Long afterId, int limit) {
+        return filmDbStorage.findPage(afterId, limit);
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> consumer) {
+        filmDbStorage.forEachFilm(consumer);
+    }
+
+    @Override
+    public Film create(Film film) {
+        return filmDbStorage.create(film);
+    }
+
+    @Override
+    public List<Film> createAll(List<Film> films) {
+        return filmDbStorage.createAll(films);
+    }
+
+    @Override
+    public Film update(Film film) {
+        try {
+            return filmDbStorage.update(film);
+        } finally {
+            filmCache.invalidate(film.getId());
+        }
+    }
+
+    @Override
+    public Optional<Film> findById(Long id) {
+        Optional<Film> cached = filmCache.get(id);
+        if (cached.isPresent()) {
+            return cached;
+        }
+
+        long stamp = filmCache.stamp();
+        Optional<Film> film = filmDbStorage.findById(id);
+        film.ifPresent(f -> filmCache.put(f, stamp));
+
+        return film;
+    }
+
+    @Override
+    public List<Film> findByIds(Set<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        List<Film> films = new ArrayList<>();
+        Set<Long> missingIds = new HashSet<>();
+
+        for (Long id : ids) {
+            filmCache.get(id).ifPresentOrElse(films::add, () -> missingIds.add(id));
+        }
+
+        if (!missingIds.isEmpty()) {
+            long stamp = filmCache.stamp();
+            for (Film film : filmDbStorage.findByIds(missingIds)) {
+                filmCache.put(film, stamp);
+                films.add(film);
+            }
+        }
+
+        films.sort(Comparator.comparing(Film::getId));
+        return films;
+    }
+
+    @Override
+    public List<Film> getFilmsByDirector(Long directorId, DirectorSortBy sortBy, int offset, int limit) {
+        return filmDbStorage.getFilmsByDirector(directorId, sortBy, offset, limit);
+    }
+
+    @Override
+    public void delete(Long id) {
+        try {
+            filmDbStorage.delete(id);
+        } finally {
+            filmCache.invalidate(id);
+        }
+    }
+
+    @Override
+    public boolean addLike(Long filmId, Long userId) {
+        try {
+            return filmDbStorage.addLike(filmId, userId);
+        } finally {
+            filmCache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean removeLike(Long filmId, Long userId) {
+        try {
+            return filmDbStorage.removeLike(filmId, userId);
+        } finally {
+            filmCache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public boolean addRate(Long filmId, Long userId, float rate) {
+        try {
+            return filmDbStorage.addRate(filmId, userId, rate);
+        } finally {
+            filmCache.invalidate(filmId);
+        }
+    }
+
+    @Override
+    public List<Film> getTopRatedFilms(int count, int priorVotes) {
+        return filmDbStorage.getTopRatedFilms(count, priorVotes);
+    }
+
+    @Override
+    public boolean existsById(Long id) {
+        return filmDbStorage.existsById(id);
+    }
+
+    @Override
+    public void forEachLikeByUser(LikeConsumer consumer) {
+        filmDbStorage.forEachLikeByUser(consumer);
+    }
+
+    @Override
+    public Set<Long> getLikedFilmIds(Long userId) {
+        return filmDbStorage.getLikedFilmIds(userId);
+    }
+
+    @Override
+    public List<FilmPopularity> getFilmPopularity() {
+        return filmDbStorage.getFilmPopularity();
+    }
+}
@@ -0,0 +1,144 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import ru.yandex.practicum.filmorate.model.Film;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.function.Predicate;
+
+@Slf4j
+@Component
+public class FilmCache {
+    private static final int MAX_TRACKED_INVALIDATIONS = 4096;
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final Map<Long, Entry> entries;
+    private final Map<Long, Long> invalidatedAt = new LinkedHashMap<>();
+
+    private long hits = 0;
+    private long misses = 0;
+    private long evictions = 0;
+    private long clock = 0;
+    private long invalidatedBefore = 0;
+
+    public FilmCache(@Value("${filmorate.film-cache.max-size:10000}") int maxSize,
+                     @Value("${filmorate.film-cache.ttl:10m}") Duration ttl) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Entry> eldest) {
+                if (size() > FilmCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+
+        log.info("Кэш фильмов: максимум {} записей, время жизни {}", maxSize, ttl);
+    }
+
+    public synchronized Optional<Film> get(Long filmId) {
+        Entry entry = entries.get(filmId);
+
+        if (entry == null) {
+            misses++;
+            return Optional.empty();
+        }
+
+        if (entry.expiresAt() - System.nanoTime() <= 0) {
+            entries.remove(filmId);
+            evictions++;
+            misses++;
+            return Optional.empty();
+        }
+
+        hits++;
+        return Optional.of(view(entry.film()));
+    }
+
+    public synchronized long stamp() {
+        return clock;
+    }
+
+    public synchronized void put(Film film, long stamp) {
+        if (maxSize <= 0 || stamp < invalidatedBefore || invalidatedAt.getOrDefault(film.getId(), 0L) > stamp) {
+            return;
+        }
+
+        entries.put(film.getId(), new Entry(snapshot(film), System.nanoTime() + ttlNanos));
+    }
+
+    public synchronized void invalidate(Long filmId) {
+        markInvalidated(filmId);
+        entries.remove(filmId);
+    }
+
+    public synchronized void invalidate(Collection<Long> filmIds) {
+        filmIds.forEach(this::invalidate);
+    }
+
+    public synchronized void invalidateIf(Predicate<Film> predicate) {
+        invalidatedBefore = ++clock;
+        invalidatedAt.clear();
+        entries.values().removeIf(entry -> predicate.test(entry.film()));
+    }
+
+    public synchronized Map<String, Long> getStats() {
+        Map<String, Long> stats = new LinkedHashMap<>();
+        stats.put("size", (long) entries.size());
+        stats.put("maxSize", (long) maxSize);
+        stats.put("hits", hits);
+        stats.put("misses", misses);
+        stats.put("evictions", evictions);
+        return stats;
+    }
+
+    private void markInvalidated(Long filmId) {
+        invalidatedAt.remove(filmId);
+        invalidatedAt.put(filmId, ++clock);
+
+        if (invalidatedAt.size() > MAX_TRACKED_INVALIDATIONS) {
+            Iterator<Map.Entry<Long, Long>> eldest = invalidatedAt.entrySet().iterator();
+            invalidatedBefore = eldest.next().getValue();
+            eldest.remove();
+        }
+    }
+
+    private Film snapshot(Film source) {
+        Film film = copyFields(source);
+        film.setLikes(Collections.unmodifiableSet(new LinkedHashSet<>(source.getLikes())));
+        film.setGenres(Collections.unmodifiableSet(new LinkedHashSet<>(source.getGenres())));
+        film.setDirectors(Collections.unmodifiableSet(new LinkedHashSet<>(source.getDirectors())));
+        return film;
+    }
+
+    private Film view(Film snapshot) {
+        Film film = copyFields(snapshot);
+        film.setLikes(snapshot.getLikes());
+        film.setGenres(snapshot.getGenres());
+        film.setDirectors(snapshot.getDirectors());
+        return film;
+    }
+
+    private Film copyFields(Film source) {
+        Film film = new Film();
+        film.setId(source.getId());
+        film.setName(source.getName());
+        film.setDescription(source.getDescription());
+        film.setReleaseDate(source.getReleaseDate());
+        film.setDuration(source.getDuration());
+        film.setCreatedAt(source.getCreatedAt());
+        film.setRate(source.getRate());
+        film.setMpa(source.getMpa());
+        return film;
+    }
+
+    private record Entry(Film film, long expiresAt) {
+    }
+}
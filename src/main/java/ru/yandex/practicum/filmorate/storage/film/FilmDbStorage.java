@@ -2,11 +2,13 @@ package ru.yandex.practicum.filmorate.storage.film;
 
 import lombok.RequiredArgsConstructor;
 
-import org.springframework.context.annotation.Primary;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.*;
@@ -14,9 +16,9 @@ import ru.yandex.practicum.filmorate.model.*;
 import java.sql.*;
 import java.sql.Date;
 import java.util.*;
+import java.util.function.Consumer;
 
 @Repository
-@Primary
 @RequiredArgsConstructor
 public class FilmDbStorage implements FilmStorage {
     private final JdbcTemplate jdbcTemplate;
@@ -27,47 +29,102 @@ public class FilmDbStorage implements FilmStorage {
             LEFT JOIN mpa_ratings m ON f.mpa_id = m.id
             """;
 
-    private static final String FIND_ALL_SQL_WITH_LIKES_COUNT =
-            "SELECT *, m.id AS mpa_id, m.name AS mpa_name, m.description AS mpa_description, " +
-                    "COUNT(fl.user_id) AS count_likes FROM films f LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                    "LEFT JOIN film_likes fl ON f.id = fl.film_id ";
+    private static final String FIND_TOP_RATED_SQL = FIND_ALL_SQL + """
+            CROSS JOIN (SELECT COALESCE(SUM(rate_sum) / NULLIF(SUM(rate_count), 0), 0) AS mean_rate FROM films) r
+            WHERE f.rate_count > 0
+            ORDER BY (? * r.mean_rate + f.rate_sum) / (? + f.rate_count) DESC, f.id
+            LIMIT ?
+            """;
+
+    private static final String FIND_BY_DIRECTOR_SQL = FIND_ALL_SQL +
+            "JOIN films_directors fd ON f.id = fd.film_id WHERE fd.director_id = ? ";
 
-    private static final String ORDER_BY_LIKES = "GROUP BY f.id ORDER BY count_likes DESC LIMIT ";
+    private static final String INSERT_FILM_SQL =
+            "INSERT INTO films (name, description, release_date, duration, mpa_id, rate) VALUES (?, ?, ?, ?, ?, 0)";
+
+    private static final int EXPORT_PAGE_SIZE = 1000;
 
     @Override
     public List<Film> findAll() {
-        return jdbcTemplate.query(FIND_ALL_SQL, this::mapRowToFilm);
+        return loadFilms(FIND_ALL_SQL);
     }
 
     @Override
-    public Film create(Film film) {
-        String sql = "INSERT INTO films (name, description, release_date, duration, mpa_id, rate) VALUES (?, ?, ?, ?, ?, ?)";
+    public List<Film> findPage(Long afterId, int limit) {
+        return loadFilms(FIND_ALL_SQL + "WHERE f.id > ? ORDER BY f.id LIMIT ?", afterId, limit);
+    }
+
+    @Override
+    public void forEachFilm(Consumer<Film> consumer) {
+        long afterId = 0;
+        List<Film> page;
 
+        do {
+            page = findPage(afterId, EXPORT_PAGE_SIZE);
+            page.forEach(consumer);
+
+            if (!page.isEmpty()) {
+                afterId = page.getLast().getId();
+            }
+        } while (page.size() == EXPORT_PAGE_SIZE);
+    }
+
+    @Override
+    public Film create(Film film) {
         KeyHolder keyHolder = new GeneratedKeyHolder();
 
         jdbcTemplate.update(connection -> {
-            PreparedStatement stmt = connection.prepareStatement(sql, new String[]{"id"});
-            stmt.setString(1, film.getName());
-            stmt.setString(2, film.getDescription());
-            stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
-            stmt.setInt(4, film.getDuration());
-            stmt.setLong(5, film.getMpa().getId());
-            stmt.setFloat(6, film.getRate());
+            PreparedStatement stmt = connection.prepareStatement(INSERT_FILM_SQL, new String[]{"id"});
+            setFilmValues(stmt, film);
             return stmt;
         }, keyHolder);
 
         film.setId(Objects.requireNonNull(keyHolder.getKey()).longValue());
 
-        saveDirector(film);
-        saveGenres(film);
+        saveDirectors(List.of(film));
+        saveGenres(List.of(film));
         saveLikes(film);
 
         return findById(film.getId()).get();
     }
 
     @Override
+    @Transactional
+    public List<Film> createAll(List<Film> films) {
+        if (films.isEmpty()) {
+            return films;
+        }
+
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+
+        jdbcTemplate.batchUpdate(connection -> connection.prepareStatement(INSERT_FILM_SQL, new String[]{"id"}),
+                new BatchPreparedStatementSetter() {
+                    @Override
+                    public void setValues(PreparedStatement stmt, int i) throws SQLException {
+                        setFilmValues(stmt, films.get(i));
+                    }
+
+                    @Override
+                    public int getBatchSize() {
+                        return films.size();
+                    }
+                }, keyHolder);
+
+        List<Map<String, Object>> keys = keyHolder.getKeyList();
+        for (int i = 0; i < films.size(); i++) {
+            films.get(i).setId(((Number) keys.get(i).values().iterator().next()).longValue());
+        }
+
+        saveDirectors(films);
+        saveGenres(films);
+
+        return films;
+    }
+
+    @Override
+    @Transactional
     public Film update(Film film) {
-        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ?, rate = ? WHERE id = ?";
+        String sql = "UPDATE films SET name = ?, description = ?, release_date = ?, duration = ?, mpa_id = ? WHERE id = ?";
 
         int updated = jdbcTemplate.update(sql,
                 film.getName(),
@@ -75,7 +132,6 @@ public class FilmDbStorage implements FilmStorage {
                 film.getReleaseDate(),
                 film.getDuration(),
                 film.getMpa().getId(),
-                film.getRate(),
                 film.getId()
         );
 
@@ -85,89 +141,100 @@ public class FilmDbStorage implements FilmStorage {
 
         updateDirector(film);
         updateGenres(film);
-        updateLikes(film);
+
+        if (film.isLikesSpecified()) {
+            updateLikes(film);
+        }
 
         return findById(film.getId()).get();
     }
 
     @Override
-    public List<Film> getPopularFilms(int count) {
-        return jdbcTemplate.query(FIND_ALL_SQL, this::mapRowToFilm)
-                .stream()
-                .sorted((f1, f2) -> f2.getLikes().size() - f1.getLikes().size())
-                .limit(count)
-                .toList();
+    public List<Film> getFilmsByDirector(Long directorId, DirectorSortBy sortBy, int offset, int limit) {
+        String orderBy = switch (sortBy) {
+            case YEAR -> "ORDER BY f.release_date, f.id ";
+            case LIKES -> "ORDER BY f.like_count DESC, f.id ";
+            case RATE -> "ORDER BY f.rate DESC, f.id ";
+        };
+
+        return loadFilms(FIND_BY_DIRECTOR_SQL + orderBy + "LIMIT ? OFFSET ?", directorId, limit, offset);
     }
 
     @Override
-    public List<Film> getPopularFilmsByGenreYear(Long genreId, Integer year, int count) {
-        return jdbcTemplate.query(FIND_ALL_SQL, this::mapRowToFilm).stream()
-                .filter(f -> f.getGenres().stream().anyMatch(g -> g.getId().equals(genreId) && f.getReleaseDate().getYear() == year))
-                .sorted((f1, f2) -> f2.getLikes().size() - f1.getLikes().size())
-                .limit(count)
-                .toList();
+    public Optional<Film> findById(Long id) {
+        String sql = "SELECT f.*, m.id as mpa_id, m.code as mpa_code, m.name as mpa_name, m.description as mpa_description " +
+                "FROM films f LEFT JOIN mpa_ratings m ON f.mpa_id = m.id WHERE f.id = ?";
+
+        return loadFilms(sql, id).stream().findFirst();
     }
 
     @Override
-    public List<Film> getPopularFilmsByGenre(Long genreId, int count) {
-        return jdbcTemplate.query(FIND_ALL_SQL, this::mapRowToFilm).stream()
-                .filter(f -> f.getGenres().stream().anyMatch(g -> g.getId().equals(genreId)))
-                .sorted((f1, f2) -> f2.getLikes().size() - f1.getLikes().size())
-                .limit(count)
-                .toList();
+    public List<Film> findByIds(Set<Long> ids) {
+        if (ids == null || ids.isEmpty()) {
+            return List.of();
+        }
+
+        return loadFilms(FIND_ALL_SQL + "WHERE f.id = ANY(?) ORDER BY f.id", (Object) toIdArray(ids));
     }
 
     @Override
-    public List<Film> getPopularFilmsByYear(Integer year, int count) {
-        return jdbcTemplate.query(FIND_ALL_SQL, this::mapRowToFilm).stream()
-                .filter(f -> f.getReleaseDate().getYear() == year)
-                .sorted((f1, f2) -> f2.getLikes().size() - f1.getLikes().size())
-                .limit(count)
-                .toList();
+    public void delete(Long id) {
+        String sql = "DELETE FROM films WHERE id = ?";
+        jdbcTemplate.update(sql, id);
     }
 
     @Override
-    public List<Film> getFilmsByDirector(Long directorId) {
-        return jdbcTemplate.query(FIND_ALL_SQL +
-                        "LEFT JOIN films_directors fd ON f.id = fd.film_id WHERE fd.director_id = ?",
-                this::mapRowToFilm, directorId);
+    @Transactional
+    public boolean addLike(Long filmId, Long userId) {
+        String sql = "INSERT INTO film_likes (film_id, user_id) SELECT ?, ? " +
+                "WHERE NOT EXISTS (SELECT 1 FROM film_likes WHERE film_id = ? AND user_id = ?)";
+
+        try {
+            if (jdbcTemplate.update(sql, filmId, userId, filmId, userId) == 0) {
+                return false;
+            }
+        } catch (DuplicateKeyException e) {
+            return false;
+        }
+
+        changeLikeCount(filmId, 1);
+        return true;
     }
 
     @Override
-    public Optional<Film> findById(Long id) {
-        String sql = "SELECT f.*, m.id as mpa_id, m.code as mpa_code, m.name as mpa_name, m.description as mpa_description " +
-                "FROM films f LEFT JOIN mpa_ratings m ON f.mpa_id = m.id WHERE f.id = ?";
+    @Transactional
+    public boolean removeLike(Long filmId, Long userId) {
+        String sql = "DELETE FROM film_likes WHERE film_id = ? AND user_id = ?";
 
-        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, id);
+        if (jdbcTemplate.update(sql, filmId, userId) == 0) {
+            return false;
+        }
 
-        return films.stream().findFirst();
+        changeLikeCount(filmId, -1);
+        removeRating(filmId, userId);
+        return true;
     }
 
     @Override
-    public List<Film> findByIds(Set<Long> ids) {
-        if (ids == null || ids.isEmpty()) {
-            return List.of();
+    @Transactional
+    public boolean addRate(Long filmId, Long userId, float rate) {
+        boolean liked = addLike(filmId, userId);
+        List<Float> previous = findRatingForUpdate(filmId, userId);
+
+        if (previous.isEmpty()) {
+            jdbcTemplate.update("INSERT INTO film_ratings (film_id, user_id, rate) VALUES (?, ?, ?)", filmId, userId, rate);
+            changeRating(filmId, rate, 1);
+        } else {
+            jdbcTemplate.update("UPDATE film_ratings SET rate = ? WHERE film_id = ? AND user_id = ?", rate, filmId, userId);
+            changeRating(filmId, (double) rate - previous.getFirst(), 0);
         }
 
-        String inClause = String.join(",", ids.stream()
-                .map(String::valueOf)
-                .toArray(String[]::new));
-
-        String sql = String.format("""
-                    SELECT *, m.id AS mpa_id, m.name AS mpa_name, m.description AS mpa_description
-                    FROM films f
-                    LEFT JOIN mpa_ratings m ON f.mpa_id = m.id
-                    WHERE f.id IN (%s)
-                    ORDER BY f.id
-                """, inClause);
-
-        return jdbcTemplate.query(sql, this::mapRowToFilm);
+        return liked;
     }
 
     @Override
-    public void delete(Long id) {
-        String sql = "DELETE FROM films WHERE id = ?";
-        jdbcTemplate.update(sql, id);
+    public List<Film> getTopRatedFilms(int count, int priorVotes) {
+        return loadFilms(FIND_TOP_RATED_SQL, priorVotes, priorVotes, count);
     }
 
     @Override
@@ -178,81 +245,64 @@ public class FilmDbStorage implements FilmStorage {
     }
 
     @Override
-    public Map<Long, Set<Long>> getFilmLikesByUsers() {
-        String sql = "SELECT user_id, film_id, FROM film_likes";
-        List<Map<String, Object>> rows = jdbcTemplate.queryForList(sql);
-
-        Map<Long, Set<Long>> userLikes = new HashMap<>();
-        for (Map<String, Object> row : rows) {
-            Long userId = ((Number) row.get("user_id")).longValue();
-            Long filmId = ((Number) row.get("film_id")).longValue();
-            userLikes.computeIfAbsent(userId, k -> new HashSet<>()).add(filmId);
-        }
-        return userLikes;
+    public void forEachLikeByUser(LikeConsumer consumer) {
+        String sql = "SELECT user_id, film_id FROM film_likes ORDER BY user_id";
+
+        jdbcTemplate.query(sql, rs -> {
+            consumer.accept(rs.getLong("user_id"), rs.getLong("film_id"));
+        });
     }
 
     @Override
-    public List<Film> findCommonFilms(Long userId, Long friendId) {
-        String sql = "SELECT f.*, m.id as mpa_id, m.code as mpa_code, m.name as mpa_name, m.description as mpa_description " +
-                "FROM films f " +
-                "LEFT JOIN mpa_ratings m ON f.mpa_id = m.id " +
-                "WHERE f.id IN (" +
-                "    SELECT fl1.film_id FROM film_likes fl1 " +
-                "    WHERE fl1.user_id = ? " +
-                "    INTERSECT " +
-                "    SELECT fl2.film_id FROM film_likes fl2 " +
-                "    WHERE fl2.user_id = ?" +
-                ") " +
-                "ORDER BY (" +
-                "    SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id" +
-                ") DESC";
-
-        return jdbcTemplate.query(sql, this::mapRowToFilm, userId, friendId);
+    public Set<Long> getLikedFilmIds(Long userId) {
+        String sql = "SELECT film_id FROM film_likes WHERE user_id = ?";
+
+        return new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, userId));
     }
 
     @Override
-    public List<Film> searchFilms(String query, List<SearchBy> by) {
-        String lowerQuery = "%" + query.toLowerCase() + "%";
+    public List<FilmPopularity> getFilmPopularity() {
+        String filmsSql = "SELECT f.id, f.release_year, COUNT(fl.user_id) AS likes FROM films f " +
+                "LEFT JOIN film_likes fl ON f.id = fl.film_id " +
+                "GROUP BY f.id, f.release_year";
+        String genresSql = "SELECT film_id, genre_id FROM film_genres";
+
+        Map<Long, FilmPopularity> popularity = new HashMap<>();
+
+        jdbcTemplate.query(filmsSql, rs -> {
+            FilmPopularity film = new FilmPopularity();
+            film.setFilmId(rs.getLong("id"));
+            film.setYear(rs.getInt("release_year"));
+            film.setLikes(rs.getInt("likes"));
+            popularity.put(film.getFilmId(), film);
+        });
+
+        jdbcTemplate.query(genresSql, rs -> {
+            FilmPopularity film = popularity.get(rs.getLong("film_id"));
+            if (film != null) {
+                film.getGenreIds().add(rs.getLong("genre_id"));
+            }
+        });
 
-        boolean searchByTitle = by.contains(SearchBy.TITLE);
-        boolean searchByDirector = by.contains(SearchBy.DIRECTOR);
+        return new ArrayList<>(popularity.values());
+    }
 
-        if (!searchByTitle && !searchByDirector) {
-            return Collections.emptyList();
-        }
+    private List<Film> loadFilms(String sql, Object... args) {
+        Map<Long, Film> filmsById = new HashMap<>();
+        List<Film> films = jdbcTemplate.query(sql, this::mapRowToFilm, args).stream()
+                .map(film -> filmsById.computeIfAbsent(film.getId(), id -> film))
+                .toList();
 
-        StringBuilder sql = new StringBuilder("""
-                    SELECT DISTINCT f.id, f.name, f.description, f.release_date, f.duration, f.rate, f.created_at,
-                           m.id AS mpa_id, m.name AS mpa_name, m.description AS mpa_description,
-                           COUNT(fl.user_id) AS like_count
-                    FROM films f
-                    LEFT JOIN mpa_ratings m ON f.mpa_id = m.id
-                    LEFT JOIN films_directors fd ON f.id = fd.film_id
-                    LEFT JOIN directors d ON fd.director_id = d.id
-                    LEFT JOIN film_likes fl ON f.id = fl.film_id
-                    WHERE
-                """);
-
-        List<Object> params = new ArrayList<>();
-
-        if (searchByTitle) {
-            sql.append(" LOWER(f.name) LIKE ? ");
-            params.add(lowerQuery);
-        }
-        if (searchByDirector) {
-            if (searchByTitle) {
-                sql.append(" OR ");
-            }
-            sql.append(" LOWER(d.name) LIKE ? ");
-            params.add(lowerQuery);
+        if (films.isEmpty()) {
+            return films;
         }
 
-        sql.append("""
-                    GROUP BY f.id, m.id, m.name, m.description, f.name, f.description, f.release_date, f.duration, f.created_at
-                    ORDER BY like_count DESC, f.release_date ASC, f.id DESC
-                """);
+        Long[] filmIds = toIdArray(filmsById.keySet());
+        loadDirectors(filmsById, filmIds);
+        loadGenres(filmsById, filmIds);
+        loadLikes(filmsById, filmIds);
 
-        return jdbcTemplate.query(sql.toString(), this::mapRowToFilm, params.toArray());
+        return films;
     }
 
     private Film mapRowToFilm(ResultSet rs, int rowNum) throws SQLException {
@@ -266,81 +316,85 @@ public class FilmDbStorage implements FilmStorage {
         film.setCreatedAt(rs.getTimestamp("created_at") != null ?
                 rs.getTimestamp("created_at").toLocalDateTime() : null);
 
-        MPA mpa = new MPA();
-        mpa.setId(rs.getLong("mpa_id"));
-        mpa.setName(rs.getString("mpa_name"));
-        mpa.setDescription(rs.getString("mpa_description"));
-        film.setMpa(mpa);
-
-        loadDirectors(film);
-        loadGenres(film);
-        loadLikes(film);
+        film.setMpa(new MPA(rs.getLong("mpa_id"), rs.getString("mpa_name"), rs.getString("mpa_description")));
 
         return film;
     }
 
-    private void loadDirectors(Film film) {
-        String sql = "SELECT d.id, d.name " +
+    private void loadDirectors(Map<Long, Film> filmsById, Long[] filmIds) {
+        String sql = "SELECT fd.film_id, d.id, d.name " +
                 "FROM films_directors fd " +
                 "JOIN directors d ON fd.director_id = d.id " +
-                "WHERE fd.film_id = ?";
+                "WHERE fd.film_id = ANY(?)";
 
-        jdbcTemplate.query(sql, (rs, rowNum) -> {
+        jdbcTemplate.query(sql, rs -> {
             Director director = new Director(rs.getLong("id"), rs.getString("name"));
-            film.getDirectors().add(director);
-
-            return null;
-        }, film.getId());
+            filmsById.get(rs.getLong("film_id")).getDirectors().add(director);
+        }, (Object) filmIds);
     }
 
-    private void loadGenres(Film film) {
-        String sql = "SELECT g.id, g.name FROM film_genres fg " +
+    private void loadGenres(Map<Long, Film> filmsById, Long[] filmIds) {
+        String sql = "SELECT fg.film_id, g.id, g.name FROM film_genres fg " +
                 "JOIN genres g ON fg.genre_id = g.id " +
-                "WHERE fg.film_id = ? " +
+                "WHERE fg.film_id = ANY(?) " +
                 "ORDER BY g.id";
-        jdbcTemplate.query(sql, (rs, rowNum) -> {
-            Genre genre = new Genre();
-            genre.setId(rs.getLong("id"));
-            genre.setName(rs.getString("name"));
-            film.getGenres().add(genre);
-            return null;
-        }, film.getId());
+
+        jdbcTemplate.query(sql, rs -> {
+            Genre genre = new Genre(rs.getLong("id"), rs.getString("name"));
+            filmsById.get(rs.getLong("film_id")).getGenres().add(genre);
+        }, (Object) filmIds);
     }
 
-    private void loadLikes(Film film) {
-        String sql = "SELECT user_id, FROM film_likes WHERE film_id = ?";
-        jdbcTemplate.query(sql, (rs, rowNum) -> {
-            film.getLikes().add(rs.getLong("user_id"));
-            return null;
-        }, film.getId());
+    private void loadLikes(Map<Long, Film> filmsById, Long[] filmIds) {
+        String sql = "SELECT film_id, user_id FROM film_likes WHERE film_id = ANY(?)";
+
+        jdbcTemplate.query(sql, rs -> {
+            filmsById.get(rs.getLong("film_id")).getLikes().add(rs.getLong("user_id"));
+        }, (Object) filmIds);
     }
 
-    private void saveDirector(Film film) {
-        if (film.getDirectors() == null || film.getDirectors().isEmpty()) {
-            return;
-        }
+    private Long[] toIdArray(Collection<Long> ids) {
+        return ids.toArray(Long[]::new);
+    }
 
+    private void setFilmValues(PreparedStatement stmt, Film film) throws SQLException {
+        stmt.setString(1, film.getName());
+        stmt.setString(2, film.getDescription());
+        stmt.setDate(3, Date.valueOf(film.getReleaseDate()));
+        stmt.setInt(4, film.getDuration());
+        stmt.setLong(5, film.getMpa().getId());
+    }
+
+    private void saveDirectors(Collection<Film> films) {
         String sql = "INSERT INTO films_directors (film_id, director_id) VALUES (?, ?)";
 
-        List<Object[]> batchArgs = film.getDirectors().stream()
-                .map(director -> new Object[]{film.getId(), director.getId()})
+        List<Object[]> batchArgs = films.stream()
+                .filter(film -> film.getDirectors() != null)
+                .flatMap(film -> film.getDirectors().stream()
+                        .map(Director::getId)
+                        .distinct()
+                        .map(directorId -> new Object[]{film.getId(), directorId}))
                 .toList();
 
-        jdbcTemplate.batchUpdate(sql, batchArgs);
-    }
-
-    private void saveGenres(Film film) {
-        if (film.getGenres() == null || film.getGenres().isEmpty()) {
-            return;
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
         }
+    }
 
+    private void saveGenres(Collection<Film> films) {
         String sql = "INSERT INTO film_genres (film_id, genre_id) VALUES (?, ?)";
 
-        List<Object[]> batchArgs = film.getGenres().stream()
-                .map(genre -> new Object[]{film.getId(), genre.getId()})
+        List<Object[]> batchArgs = films.stream()
+                .filter(film -> film.getGenres() != null)
+                .flatMap(film -> film.getGenres().stream()
+                        .map(Genre::getId)
+                        .distinct()
+                        .map(genreId -> new Object[]{film.getId(), genreId}))
                 .toList();
 
-        jdbcTemplate.batchUpdate(sql, batchArgs);
+        if (!batchArgs.isEmpty()) {
+            jdbcTemplate.batchUpdate(sql, batchArgs);
+        }
     }
 
     private void saveLikes(Film film) {
@@ -355,24 +409,89 @@ public class FilmDbStorage implements FilmStorage {
                 .toList();
 
         jdbcTemplate.batchUpdate(sql, batchArgs);
+        changeLikeCount(film.getId(), batchArgs.size());
     }
 
     private void updateDirector(Film film) {
         String deleteSql = "DELETE FROM films_directors WHERE film_id = ?";
         jdbcTemplate.update(deleteSql, film.getId());
-        saveDirector(film);
+        saveDirectors(List.of(film));
     }
 
     private void updateGenres(Film film) {
         String deleteSql = "DELETE FROM film_genres WHERE film_id = ?";
         jdbcTemplate.update(deleteSql, film.getId());
-        saveGenres(film);
+        saveGenres(List.of(film));
     }
 
     private void updateLikes(Film film) {
-        String deleteSql = "DELETE FROM film_likes WHERE film_id = ?";
-        jdbcTemplate.update(deleteSql, film.getId());
-        saveLikes(film);
+        String sql = "SELECT user_id FROM film_likes WHERE film_id = ?";
+        Set<Long> storedUserIds = new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, film.getId()));
+        Set<Long> userIds = film.getLikes() != null ? film.getLikes() : Set.of();
+
+        List<Object[]> removed = storedUserIds.stream()
+                .filter(userId -> !userIds.contains(userId))
+                .map(userId -> new Object[]{film.getId(), userId})
+                .toList();
+        List<Object[]> added = userIds.stream()
+                .filter(userId -> !storedUserIds.contains(userId))
+                .map(userId -> new Object[]{film.getId(), userId})
+                .toList();
+
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM film_likes WHERE film_id = ? AND user_id = ?", removed);
+            updateRatings(film.getId());
+        }
+
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO film_likes (film_id, user_id) VALUES (?, ?)", added);
+        }
+
+        if (added.size() != removed.size()) {
+            changeLikeCount(film.getId(), added.size() - removed.size());
+        }
+    }
+
+    private List<Float> findRatingForUpdate(Long filmId, Long userId) {
+        jdbcTemplate.queryForList("SELECT id FROM films WHERE id = ? FOR UPDATE", Long.class, filmId);
+
+        String sql = "SELECT rate FROM film_ratings WHERE film_id = ? AND user_id = ?";
+        return jdbcTemplate.queryForList(sql, Float.class, filmId, userId);
+    }
+
+    private void removeRating(Long filmId, Long userId) {
+        List<Float> previous = findRatingForUpdate(filmId, userId);
+
+        if (!previous.isEmpty()) {
+            jdbcTemplate.update("DELETE FROM film_ratings WHERE film_id = ? AND user_id = ?", filmId, userId);
+            changeRating(filmId, -previous.getFirst(), -1);
+        }
+    }
+
+    private void updateRatings(Long filmId) {
+        String deleteSql = "DELETE FROM film_ratings r WHERE r.film_id = ? " +
+                "AND NOT EXISTS (SELECT 1 FROM film_likes fl WHERE fl.film_id = r.film_id AND fl.user_id = r.user_id)";
+
+        if (jdbcTemplate.update(deleteSql, filmId) > 0) {
+            String sql = "UPDATE films f SET " +
+                    "rate_sum = (SELECT COALESCE(SUM(r.rate), 0) FROM film_ratings r WHERE r.film_id = f.id), " +
+                    "rate_count = (SELECT COUNT(*) FROM film_ratings r WHERE r.film_id = f.id), " +
+                    "rate = (SELECT COALESCE(AVG(CAST(r.rate AS DOUBLE)), 0) FROM film_ratings r WHERE r.film_id = f.id) " +
+                    "WHERE f.id = ?";
+            jdbcTemplate.update(sql, filmId);
+        }
+    }
+
+    private void changeRating(Long filmId, double sumDelta, int countDelta) {
+        String sql = "UPDATE films SET rate_sum = rate_sum + ?, rate_count = rate_count + ?, " +
+                "rate = CASE WHEN rate_count + ? = 0 THEN 0 ELSE (rate_sum + ?) / (rate_count + ?) END WHERE id = ?";
+
+        jdbcTemplate.update(sql, sumDelta, countDelta, countDelta, sumDelta, countDelta, filmId);
+    }
+
+    private void changeLikeCount(Long filmId, int delta) {
+        String sql = "UPDATE films SET like_count = like_count + ? WHERE id = ?";
+        jdbcTemplate.update(sql, delta, filmId);
     }
 
     private String getDirectorById(Long id) {
@@ -1,42 +1,54 @@
 package ru.yandex.practicum.filmorate.storage.film;
 
+import ru.yandex.practicum.filmorate.model.DirectorSortBy;
 import ru.yandex.practicum.filmorate.model.Film;
-import ru.yandex.practicum.filmorate.model.SearchBy;
+import ru.yandex.practicum.filmorate.model.FilmPopularity;
 
 import java.util.List;
-import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Consumer;
 
 public interface FilmStorage {
 
     List<Film> findAll();
 
+    List<Film> findPage(Long afterId, int limit);
+
+    void forEachFilm(Consumer<Film> consumer);
+
     Film create(Film film);
 
+    List<Film> createAll(List<Film> films);
+
     Film update(Film film);
 
     Optional<Film> findById(Long id);
 
     List<Film> findByIds(Set<Long> ids);
 
-    List<Film> getPopularFilms(int count);
+    List<Film> getFilmsByDirector(Long directorId, DirectorSortBy sortBy, int offset, int limit);
 
-    List<Film> getPopularFilmsByGenreYear(Long genreId, Integer year, int count);
+    void delete(Long id);
 
-    List<Film> getPopularFilmsByGenre(Long genreId, int count);
+    boolean addLike(Long filmId, Long userId);
 
-    List<Film> getPopularFilmsByYear(Integer year, int count);
+    boolean removeLike(Long filmId, Long userId);
 
-    List<Film> getFilmsByDirector(Long directorId);
+    boolean addRate(Long filmId, Long userId, float rate);
 
-    void delete(Long id);
+    List<Film> getTopRatedFilms(int count, int priorVotes);
 
     boolean existsById(Long id);
 
-    Map<Long, Set<Long>> getFilmLikesByUsers();
+    void forEachLikeByUser(LikeConsumer consumer);
+
+    Set<Long> getLikedFilmIds(Long userId);
 
-    List<Film> findCommonFilms(Long userId, Long friendId);
+    List<FilmPopularity> getFilmPopularity();
 
-    List<Film> searchFilms(String query, List<SearchBy> by);
-}
\ No newline at end of file
+    @FunctionalInterface
+    interface LikeConsumer {
+        void accept(long userId, long filmId);
+    }
+}
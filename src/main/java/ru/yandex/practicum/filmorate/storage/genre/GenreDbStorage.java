@@ -8,8 +8,6 @@ import ru.yandex.practicum.filmorate.model.Genre;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Optional;
-import java.util.Set;
 
 @Repository
 @RequiredArgsConstructor
@@ -21,29 +19,7 @@ public class GenreDbStorage {
         return jdbcTemplate.query(sql, this::mapRowToGenre);
     }
 
-    public Optional<Genre> findById(Long id) {
-        String sql = "SELECT * FROM genres WHERE id = ?";
-        List<Genre> genres = jdbcTemplate.query(sql, this::mapRowToGenre, id);
-        return genres.stream().findFirst();
-    }
-
-    public List<Genre> findByIds(Set<Long> ids) {
-        if (ids == null || ids.isEmpty()) {
-            return List.of();
-        }
-
-        String inClause = String.join(",", ids.stream()
-                .map(String::valueOf)
-                .toArray(String[]::new));
-
-        String sql = "SELECT * FROM genres WHERE id IN (" + inClause + ")";
-        return jdbcTemplate.query(sql, this::mapRowToGenre);
-    }
-
     private Genre mapRowToGenre(ResultSet rs, int rowNum) throws SQLException {
-        Genre genre = new Genre();
-        genre.setId(rs.getLong("id"));
-        genre.setName(rs.getString("name"));
-        return genre;
+        return new Genre(rs.getLong("id"), rs.getString("name"));
     }
 }
\ No newline at end of file
@@ -8,7 +8,6 @@ import ru.yandex.practicum.filmorate.model.MPA;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.List;
-import java.util.Optional;
 
 @Repository
 @RequiredArgsConstructor
@@ -20,17 +19,7 @@ public class MPADbStorage {
         return jdbcTemplate.query(sql, this::mapRowToMPA);
     }
 
-    public Optional<MPA> findById(Long id) {
-        String sql = "SELECT * FROM mpa_ratings WHERE id = ?";
-        List<MPA> mpaList = jdbcTemplate.query(sql, this::mapRowToMPA, id);
-        return mpaList.stream().findFirst();
-    }
-
     private MPA mapRowToMPA(ResultSet rs, int rowNum) throws SQLException {
-        MPA mpa = new MPA();
-        mpa.setId(rs.getLong("id"));
-        mpa.setName(rs.getString("name"));
-        mpa.setDescription(rs.getString("description"));
-        return mpa;
+        return new MPA(rs.getLong("id"), rs.getString("name"), rs.getString("description"));
     }
 }
\ No newline at end of file
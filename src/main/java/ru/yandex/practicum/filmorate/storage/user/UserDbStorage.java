@@ -6,13 +6,13 @@ import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.support.GeneratedKeyHolder;
 import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import ru.yandex.practicum.filmorate.exception.NotFoundException;
 import ru.yandex.practicum.filmorate.model.User;
 
 import java.sql.*;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.sql.Date;
+import java.util.*;
 
 @Repository
 @Primary
@@ -22,12 +22,18 @@ public class UserDbStorage implements UserStorage {
 
     @Override
     public List<User> findAll() {
-        String sql = "SELECT * FROM users";
+        String sql = "SELECT * FROM users ORDER BY id";
         List<User> users = jdbcTemplate.query(sql, this::mapRowToUser);
-        users.forEach(this::loadFriends);
+        loadFriends(users, "SELECT user_id, friend_id FROM friendships");
         return users;
     }
 
+    @Override
+    public List<User> findPage(Long afterId, int limit) {
+        String sql = "SELECT * FROM users WHERE id > ? ORDER BY id LIMIT ?";
+        return loadUsers(sql, true, afterId, limit);
+    }
+
     @Override
     public User create(User user) {
         String sql = "INSERT INTO users (email, login, name, birthday) VALUES (?, ?, ?, ?)";
@@ -52,6 +58,7 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    @Transactional
     public User update(User user) {
         String sql = "UPDATE users SET email = ?, login = ?, name = ?, birthday = ? WHERE id = ?";
         int updated = jdbcTemplate.update(sql,
@@ -66,7 +73,9 @@ public class UserDbStorage implements UserStorage {
             throw new NotFoundException("Пользователь с id = " + user.getId() + " не найден");
         }
 
-        updateFriends(user);
+        if (user.isFriendsSpecified()) {
+            updateFriends(user);
+        }
 
         return user;
     }
@@ -84,7 +93,39 @@ public class UserDbStorage implements UserStorage {
     }
 
     @Override
+    public List<User> findByIds(Collection<Long> ids, boolean withFriends) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+
+        String sql = "SELECT * FROM users WHERE id = ANY(?) ORDER BY id";
+        return loadUsers(sql, withFriends, (Object) toIdArray(ids));
+    }
+
+    @Override
+    public List<User> findFriends(Long userId, Long afterId, int limit) {
+        String sql = "SELECT u.* FROM friendships f " +
+                "JOIN users u ON u.id = f.friend_id " +
+                "WHERE f.user_id = ? AND f.friend_id > ? " +
+                "ORDER BY f.friend_id LIMIT ?";
+
+        return loadUsers(sql, true, userId, afterId, limit);
+    }
+
+    @Override
+    @Transactional
     public void delete(Long id) {
+        String filmsSql = "UPDATE films SET like_count = like_count - 1 " +
+                "WHERE id IN (SELECT film_id FROM film_likes WHERE user_id = ?)";
+        String ratingsSql = "UPDATE films f SET " +
+                "rate_sum = rate_sum - (SELECT r.rate FROM film_ratings r WHERE r.film_id = f.id AND r.user_id = ?), " +
+                "rate_count = rate_count - 1, " +
+                "rate = CASE WHEN rate_count = 1 THEN 0 ELSE (rate_sum - (SELECT r.rate FROM film_ratings r " +
+                "WHERE r.film_id = f.id AND r.user_id = ?)) / (rate_count - 1) END " +
+                "WHERE id IN (SELECT film_id FROM film_ratings WHERE user_id = ?)";
+        jdbcTemplate.update(filmsSql, id);
+        jdbcTemplate.update(ratingsSql, id, id, id);
+
         String sql = "DELETE FROM users WHERE id = ?";
         jdbcTemplate.update(sql, id);
     }
@@ -109,6 +150,37 @@ public class UserDbStorage implements UserStorage {
         return user;
     }
 
+    private List<User> loadUsers(String sql, boolean withFriends, Object... args) {
+        List<User> users = jdbcTemplate.query(sql, this::mapRowToUser, args);
+
+        if (withFriends && !users.isEmpty()) {
+            loadFriends(users);
+        }
+
+        return users;
+    }
+
+    private void loadFriends(List<User> users) {
+        Long[] userIds = toIdArray(users.stream().map(User::getId).toList());
+        loadFriends(users, "SELECT user_id, friend_id FROM friendships WHERE user_id = ANY(?)", (Object) userIds);
+    }
+
+    private void loadFriends(List<User> users, String sql, Object... args) {
+        Map<Long, User> usersById = new HashMap<>();
+        users.forEach(user -> usersById.put(user.getId(), user));
+
+        jdbcTemplate.query(sql, rs -> {
+            User user = usersById.get(rs.getLong("user_id"));
+            if (user != null) {
+                user.getFriends().add(rs.getLong("friend_id"));
+            }
+        }, args);
+    }
+
+    private Long[] toIdArray(Collection<Long> ids) {
+        return ids.toArray(Long[]::new);
+    }
+
     private void loadFriends(User user) {
         String sql = "SELECT friend_id FROM friendships WHERE user_id = ?";
         jdbcTemplate.query(sql, (rs, rowNum) -> {
@@ -131,15 +203,37 @@ public class UserDbStorage implements UserStorage {
     }
 
 
+    @Override
+    public Map<Long, Set<Long>> getFriendIdsByUsers() {
+        String sql = "SELECT user_id, friend_id FROM friendships";
+
+        Map<Long, Set<Long>> friendIds = new HashMap<>();
+        jdbcTemplate.query(sql, rs -> {
+            friendIds.computeIfAbsent(rs.getLong("user_id"), k -> new HashSet<>()).add(rs.getLong("friend_id"));
+        });
+        return friendIds;
+    }
+
     private void updateFriends(User user) {
-        String deleteSql = "DELETE FROM friendships WHERE user_id = ?";
-        jdbcTemplate.update(deleteSql, user.getId());
+        String sql = "SELECT friend_id FROM friendships WHERE user_id = ?";
+        Set<Long> storedFriendIds = new HashSet<>(jdbcTemplate.queryForList(sql, Long.class, user.getId()));
+        Set<Long> friendIds = user.getFriends() != null ? user.getFriends() : Set.of();
+
+        List<Object[]> removed = storedFriendIds.stream()
+                .filter(friendId -> !friendIds.contains(friendId))
+                .map(friendId -> new Object[]{user.getId(), friendId})
+                .toList();
+        List<Object[]> added = friendIds.stream()
+                .filter(friendId -> !storedFriendIds.contains(friendId))
+                .map(friendId -> new Object[]{user.getId(), friendId})
+                .toList();
+
+        if (!removed.isEmpty()) {
+            jdbcTemplate.batchUpdate("DELETE FROM friendships WHERE user_id = ? AND friend_id = ?", removed);
+        }
 
-        if (user.getFriends() != null && !user.getFriends().isEmpty()) {
-            String insertSql = "INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)";
-            for (Long friendId : user.getFriends()) {
-                jdbcTemplate.update(insertSql, user.getId(), friendId);
-            }
+        if (!added.isEmpty()) {
+            jdbcTemplate.batchUpdate("INSERT INTO friendships (user_id, friend_id) VALUES (?, ?)", added);
         }
     }
 
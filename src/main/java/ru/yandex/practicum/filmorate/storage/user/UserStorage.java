@@ -2,19 +2,28 @@ package ru.yandex.practicum.filmorate.storage.user;
 
 import ru.yandex.practicum.filmorate.model.User;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 public interface UserStorage {
 
     List<User> findAll();
 
+    List<User> findPage(Long afterId, int limit);
+
     User create(User user);
 
     User update(User user);
 
     Optional<User> findById(Long id);
 
+    List<User> findByIds(Collection<Long> ids, boolean withFriends);
+
+    List<User> findFriends(Long userId, Long afterId, int limit);
+
     void delete(Long id);
 
     boolean existsById(Long id);
@@ -22,4 +31,6 @@ public interface UserStorage {
     void addFriend(Long userId, Long friendId);
 
     void removeFriend(Long userId, Long friendId);
+
+    Map<Long, Set<Long>> getFriendIdsByUsers();
 }
\ No newline at end of file
@@ -0,0 +1,16 @@
+-- director_id хранился как VARCHAR без ключей: удаляем висячие ссылки и дубликаты,
+-- меняем тип столбца и добавляем ограничения
+DELETE FROM films_directors fd
+WHERE NOT EXISTS (SELECT 1 FROM films f WHERE f.id = fd.film_id)
+   OR NOT EXISTS (SELECT 1 FROM directors d WHERE CAST(d.id AS VARCHAR(255)) = CAST(fd.director_id AS VARCHAR(255)));
+DELETE FROM films_directors a
+WHERE EXISTS (SELECT 1 FROM films_directors b
+              WHERE b.film_id = a.film_id AND b.director_id = a.director_id AND b._ROWID_ < a._ROWID_);
+ALTER TABLE films_directors ALTER COLUMN director_id SET DATA TYPE BIGINT;
+ALTER TABLE films_directors ADD CONSTRAINT IF NOT EXISTS pk_films_directors PRIMARY KEY (film_id, director_id);
+ALTER TABLE films_directors ADD CONSTRAINT IF NOT EXISTS fk_films_directors_film
+    FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE;
+ALTER TABLE films_directors ADD CONSTRAINT IF NOT EXISTS fk_films_directors_director
+    FOREIGN KEY (director_id) REFERENCES directors(id) ON DELETE CASCADE;
+
+CREATE INDEX IF NOT EXISTS idx_films_directors_director_id ON films_directors(director_id, film_id);
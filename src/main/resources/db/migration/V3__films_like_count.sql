@@ -0,0 +1,8 @@
+-- Счётчик лайков фильма для сортировки фильмографии режиссёра
+ALTER TABLE films ADD COLUMN IF NOT EXISTS like_count INT;
+UPDATE films f SET like_count = (SELECT COUNT(*) FROM film_likes fl WHERE fl.film_id = f.id);
+ALTER TABLE films ALTER COLUMN like_count SET DEFAULT 0;
+ALTER TABLE films ALTER COLUMN like_count SET NOT NULL;
+ALTER TABLE films ADD COLUMN IF NOT EXISTS release_year INT GENERATED ALWAYS AS (EXTRACT(YEAR FROM release_date));
+
+CREATE INDEX IF NOT EXISTS idx_films_like_count ON films(like_count DESC, id);
@@ -0,0 +1,19 @@
+-- Оценки пользователей: films.rate хранит их среднее и пересчитывается при каждой оценке
+CREATE TABLE IF NOT EXISTS film_ratings (
+    film_id BIGINT NOT NULL,
+    user_id BIGINT NOT NULL,
+    rate FLOAT NOT NULL,
+    PRIMARY KEY (film_id, user_id),
+    FOREIGN KEY (film_id) REFERENCES films(id) ON DELETE CASCADE,
+    FOREIGN KEY (user_id) REFERENCES users(id) ON DELETE CASCADE
+);
+
+ALTER TABLE films ADD COLUMN IF NOT EXISTS rate_sum DOUBLE DEFAULT 0 NOT NULL;
+ALTER TABLE films ADD COLUMN IF NOT EXISTS rate_count INT DEFAULT 0 NOT NULL;
+
+-- Оценок в film_ratings ещё нет, поэтому прежние значения films.rate сбрасываются
+UPDATE films SET rate = 0;
+
+CREATE INDEX IF NOT EXISTS idx_films_rate ON films(rate DESC, id);
+CREATE INDEX IF NOT EXISTS idx_films_rate_count ON films(rate_count);
+CREATE INDEX IF NOT EXISTS idx_film_ratings_user_id ON film_ratings(user_id);
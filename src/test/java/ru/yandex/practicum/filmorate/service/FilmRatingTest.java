@@ -0,0 +1,135 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.Film;
+import ru.yandex.practicum.filmorate.model.MPA;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-rating;DB_CLOSE_DELAY=-1",
+        "filmorate.film-cache.max-size=0",
+        "filmorate.recommendations.initial-delay=PT1H",
+        "filmorate.ratings.prior-votes=2"
+})
+class FilmRatingTest {
+    private static final int MAX_COUNT = 1000;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Test
+    void acceptsRatesFromOneToTen() {
+        Film film = createFilm();
+        User user = createUser();
+
+        for (Float rate : new Float[]{0f, 0.5f, 10.5f, 11f, -1f, Float.NaN, null}) {
+            assertThatThrownBy(() -> filmService.addRate(film.getId(), user.getId(), rate))
+                    .isInstanceOf(ValidationException.class);
+        }
+        assertThat(filmService.findById(film.getId()).getLikes()).isEmpty();
+
+        filmService.addRate(film.getId(), user.getId(), 1f);
+        assertThat(filmService.findById(film.getId()).getRate()).isEqualTo(1f);
+
+        filmService.addRate(film.getId(), createUser().getId(), 10f);
+        assertThat(filmService.findById(film.getId()).getRate()).isEqualTo(5.5f);
+    }
+
+    @Test
+    void reRatingReplacesPreviousScore() {
+        Film film = createFilm();
+        User user = createUser();
+        assertThat(film.getRate()).isZero();
+
+        filmService.addRate(film.getId(), user.getId(), 3f);
+        filmService.addRate(film.getId(), user.getId(), 8f);
+
+        Film rated = filmService.findById(film.getId());
+        assertThat(rated.getRate()).isEqualTo(8f);
+        assertThat(rated.getLikes()).containsExactly(user.getId());
+    }
+
+    @Test
+    void removingLikeWithdrawsRating() {
+        Film film = createFilm();
+        User user = createUser();
+        User other = createUser();
+
+        filmService.addRate(film.getId(), user.getId(), 6f);
+        filmService.addRate(film.getId(), other.getId(), 4f);
+        assertThat(filmService.findById(film.getId()).getRate()).isCloseTo(5f, within(1e-4f));
+
+        filmService.removeLike(film.getId(), user.getId());
+        assertThat(filmService.findById(film.getId()).getRate()).isCloseTo(4f, within(1e-4f));
+
+        filmService.removeLike(film.getId(), other.getId());
+        assertThat(filmService.findById(film.getId()).getRate()).isZero();
+        assertThat(topRatedIds()).doesNotContain(film.getId());
+    }
+
+    @Test
+    void topRatedShrinksFewVotesTowardsMean() {
+        Film single = createFilm();
+        Film many = createFilm();
+        Film low = createFilm();
+        Film unrated = createFilm();
+
+        filmService.addRate(single.getId(), createUser().getId(), 10f);
+        for (int i = 0; i < 5; i++) {
+            filmService.addRate(many.getId(), createUser().getId(), 9f);
+            filmService.addRate(low.getId(), createUser().getId(), 1f);
+        }
+
+        List<Long> ids = List.of(single.getId(), many.getId(), low.getId(), unrated.getId());
+        List<Long> ranked = topRatedIds().stream()
+                .filter(ids::contains)
+                .toList();
+
+        assertThat(ranked).containsExactly(many.getId(), single.getId(), low.getId());
+        assertThat(filmService.getTopRatedFilms(1)).hasSize(1);
+        assertThatThrownBy(() -> filmService.getTopRatedFilms(0)).isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> filmService.getTopRatedFilms(MAX_COUNT + 1))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    private List<Long> topRatedIds() {
+        return filmService.getTopRatedFilms(MAX_COUNT).stream()
+                .map(Film::getId)
+                .toList();
+    }
+
+    private Film createFilm() {
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new MPA(1L, null, null));
+        film.setRate(9.9f);
+        film.setDirectors(Set.of());
+        return filmService.create(film);
+    }
+
+    private User createUser() {
+        User user = new User();
+        user.setEmail("user" + System.nanoTime() + "@mail.ru");
+        user.setLogin("user");
+        user.setName("user");
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userService.create(user);
+    }
+}
@@ -0,0 +1,48 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.model.*;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-search-index;DB_CLOSE_DELAY=-1",
+        "filmorate.recommendations.initial-delay=PT1H"
+})
+class FilmSearchIndexTest {
+    @Autowired
+    private FilmSearchIndex filmSearchIndex;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private DirectorService directorService;
+
+    @Test
+    void findsNewFilmOfDirectorWithoutFilmsAfterRebuild() {
+        String name = "Режиссёр " + System.nanoTime();
+        Director director = directorService.createDirector(new Director(null, name));
+
+        filmSearchIndex.rebuild();
+
+        Film film = new Film();
+        film.setName("Фильм");
+        film.setDescription("Описание");
+        film.setReleaseDate(LocalDate.of(2000, 1, 1));
+        film.setDuration(90);
+        film.setMpa(new MPA(1L, null, null));
+        film.setDirectors(Set.of(new Director(director.getId(), null)));
+        Film created = filmService.create(film);
+
+        List<Film> found = filmService.searchFilms(name, List.of(SearchBy.DIRECTOR));
+
+        assertThat(found).extracting(Film::getId).containsExactly(created.getId());
+    }
+}
@@ -0,0 +1,111 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import ru.yandex.practicum.filmorate.exception.NotFoundException;
+import ru.yandex.practicum.filmorate.exception.ValidationException;
+import ru.yandex.practicum.filmorate.model.User;
+
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:friend-suggestions;DB_CLOSE_DELAY=-1",
+        "filmorate.recommendations.initial-delay=PT1H"
+})
+class FriendSuggestionsTest {
+    private static final int MAX_COUNT = 1000;
+
+    @Autowired
+    private UserService userService;
+
+    private User user;
+    private User threeMutual;
+    private User twoMutualFirst;
+    private User twoMutualSecond;
+    private User oneMutual;
+
+    @BeforeEach
+    void setUp() {
+        user = createUser("user");
+        User first = createUser("first");
+        User second = createUser("second");
+        User third = createUser("third");
+        oneMutual = createUser("one");
+        twoMutualSecond = createUser("twoSecond");
+        twoMutualFirst = createUser("twoFirst");
+        threeMutual = createUser("three");
+        User stranger = createUser("stranger");
+
+        addFriends(user, first, second, third);
+        addFriends(threeMutual, first, second, third);
+        addFriends(twoMutualFirst, first, second);
+        addFriends(twoMutualSecond, second, third);
+        addFriends(oneMutual, third);
+        addFriends(first, second, third);
+        addFriends(stranger, createUser("other"));
+    }
+
+    @Test
+    void ranksByMutualFriendsThenById() {
+        List<Long> tie = twoMutualFirst.getId() < twoMutualSecond.getId()
+                ? List.of(twoMutualFirst.getId(), twoMutualSecond.getId())
+                : List.of(twoMutualSecond.getId(), twoMutualFirst.getId());
+
+        assertThat(userService.getFriendSuggestions(user.getId(), 10))
+                .extracting(User::getId)
+                .containsExactly(threeMutual.getId(), tie.get(0), tie.get(1), oneMutual.getId());
+    }
+
+    @Test
+    void excludesSelfAndExistingFriends() {
+        List<Long> suggestedIds = userService.getFriendSuggestions(user.getId(), 10).stream()
+                .map(User::getId)
+                .toList();
+
+        assertThat(suggestedIds).doesNotContain(user.getId());
+        assertThat(suggestedIds).doesNotContainAnyElementsOf(userService.findById(user.getId()).getFriends());
+    }
+
+    @Test
+    void returnsAtMostCountSuggestions() {
+        assertThat(userService.getFriendSuggestions(user.getId(), 1))
+                .extracting(User::getId)
+                .containsExactly(threeMutual.getId());
+        assertThat(userService.getFriendSuggestions(user.getId(), MAX_COUNT)).hasSize(4);
+    }
+
+    @Test
+    void rejectsCountOutsideBounds() {
+        assertThatThrownBy(() -> userService.getFriendSuggestions(user.getId(), 0))
+                .isInstanceOf(ValidationException.class);
+        assertThatThrownBy(() -> userService.getFriendSuggestions(user.getId(), MAX_COUNT + 1))
+                .isInstanceOf(ValidationException.class);
+    }
+
+    @Test
+    void rejectsUnknownUser() {
+        assertThatThrownBy(() -> userService.getFriendSuggestions(Long.MAX_VALUE, 10))
+                .isInstanceOf(NotFoundException.class);
+    }
+
+    private void addFriends(User user, User... friends) {
+        for (User friend : friends) {
+            userService.addFriend(user.getId(), friend.getId());
+        }
+    }
+
+    private User createUser(String login) {
+        User user = new User();
+        user.setEmail(login + System.nanoTime() + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return userService.create(user);
+    }
+}
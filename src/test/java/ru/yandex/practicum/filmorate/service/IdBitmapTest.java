@@ -0,0 +1,149 @@
+package ru.yandex.practicum.filmorate.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdBitmapTest {
+    private static final int KEYS = 4;
+    private static final int KEY_SPAN = 1 << 16;
+    private static final int ARRAY_LIMIT = 4096;
+    private static final int ROUNDS = 20;
+    private static final long SEED = 42;
+
+    private final Random random = new Random(SEED);
+
+    @Test
+    void addRemoveAndContainsMatchHashSet() {
+        for (int round = 0; round < ROUNDS; round++) {
+            IdBitmap bitmap = new IdBitmap();
+            Set<Long> expected = new HashSet<>();
+
+            for (long id : randomIds()) {
+                assertThat(bitmap.add(id)).isEqualTo(expected.add(id));
+            }
+            assertMatches(bitmap, expected);
+
+            for (long id : randomIds()) {
+                assertThat(bitmap.remove(id)).isEqualTo(expected.remove(id));
+            }
+            assertMatches(bitmap, expected);
+
+            for (long id : randomIds()) {
+                assertThat(bitmap.contains(id)).isEqualTo(expected.contains(id));
+            }
+        }
+    }
+
+    @Test
+    void containersSwitchTypeAcrossArrayLimit() {
+        IdBitmap bitmap = new IdBitmap();
+        Set<Long> expected = new HashSet<>();
+        long base = 3L * KEY_SPAN;
+
+        for (long id = base; id < base + 3 * ARRAY_LIMIT; id += 2) {
+            bitmap.add(id);
+            expected.add(id);
+            if (expected.size() % 1024 == 0 || expected.size() == ARRAY_LIMIT + 1) {
+                assertMatches(bitmap, expected);
+            }
+        }
+        assertMatches(bitmap, expected);
+
+        List<Long> ids = new ArrayList<>(expected);
+        Collections.shuffle(ids, random);
+        for (Long id : ids) {
+            assertThat(bitmap.remove(id)).isTrue();
+            expected.remove(id);
+            if (expected.size() % 512 == 0 || expected.size() == ARRAY_LIMIT / 2) {
+                assertMatches(bitmap, expected);
+            }
+        }
+
+        assertThat(bitmap.isEmpty()).isTrue();
+        assertThat(bitmap.remove(base)).isFalse();
+    }
+
+    @Test
+    void setOperationsMatchHashSet() {
+        for (int round = 0; round < ROUNDS; round++) {
+            Set<Long> left = randomIds();
+            Set<Long> right = randomIds();
+            IdBitmap leftBitmap = bitmapOf(left);
+            IdBitmap rightBitmap = bitmapOf(right);
+
+            Set<Long> and = new HashSet<>(left);
+            and.retainAll(right);
+            Set<Long> andNot = new HashSet<>(left);
+            andNot.removeAll(right);
+            Set<Long> or = new HashSet<>(left);
+            or.addAll(right);
+
+            assertThat(leftBitmap.andCardinality(rightBitmap)).isEqualTo(and.size());
+            assertThat(rightBitmap.andCardinality(leftBitmap)).isEqualTo(and.size());
+            assertMatches(leftBitmap.and(rightBitmap), and);
+            assertMatches(rightBitmap.and(leftBitmap), and);
+            assertMatches(leftBitmap.andNot(rightBitmap), andNot);
+
+            leftBitmap.or(rightBitmap);
+            assertMatches(leftBitmap, or);
+            assertMatches(rightBitmap, right);
+        }
+    }
+
+    @Test
+    void setOperationResultsAreIndependentOfOperands() {
+        Set<Long> left = randomIds();
+        Set<Long> right = randomIds();
+        IdBitmap leftBitmap = bitmapOf(left);
+        IdBitmap rightBitmap = bitmapOf(right);
+
+        IdBitmap union = new IdBitmap();
+        union.or(leftBitmap);
+        IdBitmap difference = leftBitmap.andNot(new IdBitmap());
+        for (long id : right) {
+            union.add(id);
+            difference.remove(id);
+        }
+
+        assertMatches(leftBitmap, left);
+        assertMatches(rightBitmap, right);
+    }
+
+    private Set<Long> randomIds() {
+        Set<Long> ids = new HashSet<>();
+        for (int key = 0; key < KEYS; key++) {
+            int count = switch (random.nextInt(4)) {
+                case 0 -> 0;
+                case 1 -> random.nextInt(ARRAY_LIMIT / 4);
+                case 2 -> ARRAY_LIMIT - 200 + random.nextInt(400);
+                default -> ARRAY_LIMIT + random.nextInt(4 * ARRAY_LIMIT);
+            };
+
+            int span = count > 0 && random.nextBoolean() ? Math.min(KEY_SPAN, 2 * count) : KEY_SPAN;
+            long base = (long) key * KEY_SPAN;
+            for (int i = 0; i < count; i++) {
+                ids.add(base + random.nextInt(span));
+            }
+        }
+        return ids;
+    }
+
+    private IdBitmap bitmapOf(Set<Long> ids) {
+        IdBitmap bitmap = new IdBitmap();
+        ids.forEach(bitmap::add);
+        return bitmap;
+    }
+
+    private void assertMatches(IdBitmap bitmap, Set<Long> expected) {
+        long[] sorted = expected.stream().mapToLong(Long::longValue).sorted().toArray();
+
+        assertThat(bitmap.cardinality()).isEqualTo(expected.size());
+        assertThat(bitmap.isEmpty()).isEqualTo(expected.isEmpty());
+        assertThat(bitmap.toArray()).containsExactly(sorted);
+        assertThat(bitmap.toSet()).isEqualTo(expected);
+        assertThat(expected).allMatch(bitmap::contains);
+    }
+}
@@ -0,0 +1,187 @@
+package ru.yandex.practicum.filmorate.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.*;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@Slf4j
+class UserMinHashRecallTest {
+    private static final int USERS = 50_000;
+    private static final int FILMS = 20_000;
+    private static final int CLUSTERS = 200;
+    private static final int CLUSTER_FILMS = 100;
+    private static final int MIN_LIKES = 5;
+    private static final int MAX_LIKES = 35;
+    private static final double IN_CLUSTER_SHARE = 0.8;
+    private static final int QUERIES = 500;
+    private static final long SEED = 42;
+
+    private static long[][] filmsByUser;
+    private static long[] queryUserIds;
+    private static Match[] exactMatches;
+    private static long exactNanos;
+
+    @BeforeAll
+    static void generateUsers() {
+        Random random = new Random(SEED);
+        long[][] clusterFilms = new long[CLUSTERS][CLUSTER_FILMS];
+        for (long[] films : clusterFilms) {
+            for (int i = 0; i < CLUSTER_FILMS; i++) {
+                films[i] = 1 + random.nextInt(FILMS);
+            }
+        }
+
+        filmsByUser = new long[USERS][];
+        for (int userId = 0; userId < USERS; userId++) {
+            long[] pool = clusterFilms[random.nextInt(CLUSTERS)];
+            int likes = MIN_LIKES + random.nextInt(MAX_LIKES - MIN_LIKES + 1);
+            Set<Long> filmIds = new HashSet<>();
+
+            while (filmIds.size() < likes) {
+                filmIds.add(random.nextDouble() < IN_CLUSTER_SHARE
+                        ? pool[random.nextInt(CLUSTER_FILMS)]
+                        : 1 + random.nextInt(FILMS));
+            }
+
+            filmsByUser[userId] = filmIds.stream().mapToLong(Long::longValue).sorted().toArray();
+        }
+
+        queryUserIds = random.longs(QUERIES, 0, USERS).toArray();
+        exactMatches = new Match[QUERIES];
+
+        long startedAt = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            exactMatches[i] = bestMatch(queryUserIds[i], allUsers());
+        }
+        exactNanos = System.nanoTime() - startedAt;
+    }
+
+    @ParameterizedTest(name = "{0} полос x {1} строк")
+    @CsvSource({
+            "24, 1, 0.95",
+            "32, 2, 0.70",
+            "64, 2, 0.85"
+    })
+    void lshCandidatesFindExactNearestNeighbour(int bands, int rows, double minRecall) {
+        UserMinHash minHash = new UserMinHash(bands, rows);
+        for (int userId = 0; userId < USERS; userId++) {
+            minHash.put(userId, filmsByUser[userId]);
+        }
+
+        int hits = 0;
+        int answerable = 0;
+        long candidates = 0;
+        long startedAt = System.nanoTime();
+
+        for (int i = 0; i < QUERIES; i++) {
+            long userId = queryUserIds[i];
+            Set<Long> found = minHash.candidates(userId, filmsByUser[(int) userId]);
+            Match match = bestMatch(userId, found);
+            candidates += found.size();
+
+            if (exactMatches[i].common() > 0) {
+                answerable++;
+                if (match.common() == exactMatches[i].common()) {
+                    hits++;
+                }
+            }
+        }
+
+        long lshNanos = System.nanoTime() - startedAt;
+        double recall = (double) hits / answerable;
+
+        log.info("{} x {}: recall {}, LSH {} мс против полного перебора {} мс на запрос, {} кандидатов в среднем",
+                bands, rows, String.format("%.3f", recall),
+                String.format("%.3f", lshNanos / 1e6 / QUERIES), String.format("%.3f", exactNanos / 1e6 / QUERIES),
+                candidates / QUERIES);
+
+        assertThat(recall).isGreaterThanOrEqualTo(minRecall);
+        assertThat(candidates / QUERIES).isLessThan(USERS / 20);
+    }
+
+    @ParameterizedTest(name = "{0} полос x {1} строк")
+    @CsvSource({
+            "24, 1"
+    })
+    void incrementalSignaturesMatchRebuiltOnes(int bands, int rows) {
+        UserMinHash incremental = new UserMinHash(bands, rows);
+        UserMinHash rebuilt = new UserMinHash(bands, rows);
+        int users = 2_000;
+
+        for (int userId = 0; userId < users; userId++) {
+            for (long filmId : filmsByUser[userId]) {
+                incremental.add(userId, filmId);
+            }
+            rebuilt.put(userId, filmsByUser[userId]);
+        }
+
+        for (int userId = 0; userId < users; userId++) {
+            assertThat(incremental.candidates(userId, filmsByUser[userId]))
+                    .isEqualTo(rebuilt.candidates(userId, filmsByUser[userId]));
+        }
+    }
+
+    private static Match bestMatch(long userId, Iterable<Long> candidates) {
+        long[] target = filmsByUser[(int) userId];
+        long bestUserId = -1;
+        int bestCommon = 0;
+
+        for (long candidateId : candidates) {
+            if (candidateId == userId) {
+                continue;
+            }
+
+            int common = countCommon(target, filmsByUser[(int) candidateId]);
+            if (common > bestCommon || (common == bestCommon && common > 0 && candidateId < bestUserId)) {
+                bestCommon = common;
+                bestUserId = candidateId;
+            }
+        }
+
+        return new Match(bestUserId, bestCommon);
+    }
+
+    private static int countCommon(long[] left, long[] right) {
+        int common = 0;
+        int i = 0;
+        int j = 0;
+
+        while (i < left.length && j < right.length) {
+            if (left[i] < right[j]) {
+                i++;
+            } else if (left[i] > right[j]) {
+                j++;
+            } else {
+                common++;
+                i++;
+                j++;
+            }
+        }
+
+        return common;
+    }
+
+    private static Iterable<Long> allUsers() {
+        return () -> new Iterator<>() {
+            private long next = 0;
+
+            @Override
+            public boolean hasNext() {
+                return next < USERS;
+            }
+
+            @Override
+            public Long next() {
+                return next++;
+            }
+        };
+    }
+
+    private record Match(long userId, int common) {
+    }
+}
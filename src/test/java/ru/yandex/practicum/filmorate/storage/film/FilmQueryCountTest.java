@@ -0,0 +1,202 @@
+package ru.yandex.practicum.filmorate.storage.film;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+import ru.yandex.practicum.filmorate.model.*;
+import ru.yandex.practicum.filmorate.service.DirectorService;
+import ru.yandex.practicum.filmorate.service.FilmService;
+import ru.yandex.practicum.filmorate.service.UserService;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:film-query-count;DB_CLOSE_DELAY=-1",
+        "filmorate.film-cache.max-size=0",
+        "filmorate.recommendations.initial-delay=PT1H",
+        "logging.level.org.springframework.jdbc.core=INFO"
+})
+class FilmQueryCountTest {
+    private static final int MAX_HYDRATION_QUERIES = 4;
+
+    @Autowired
+    private FilmDbStorage filmDbStorage;
+
+    @Autowired
+    private FilmService filmService;
+
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private DirectorService directorService;
+
+    @Autowired
+    private StatementCounter statementCounter;
+
+    private Director director;
+    private User user;
+    private User friend;
+    private final Set<Long> filmIds = new HashSet<>();
+
+    @BeforeEach
+    void setUp() {
+        director = directorService.createDirector(new Director(null, "Режиссёр " + System.nanoTime()));
+        user = userService.create(newUser("user"));
+        friend = userService.create(newUser("friend"));
+    }
+
+    @Test
+    void findAllRunsSameNumberOfQueriesForAnyNumberOfFilms() {
+        assertQueryCountDoesNotGrow(() -> filmDbStorage.findAll());
+    }
+
+    @Test
+    void findByIdsRunsSameNumberOfQueriesForAnyNumberOfFilms() {
+        assertQueryCountDoesNotGrow(() -> filmDbStorage.findByIds(new HashSet<>(filmIds)));
+    }
+
+    @Test
+    void directorListingRunsSameNumberOfQueriesForAnyNumberOfFilms() {
+        for (DirectorSortBy sortBy : DirectorSortBy.values()) {
+            assertQueryCountDoesNotGrow(() -> filmService.getFilmsByDirector(director.getId(), sortBy, 0, null));
+        }
+    }
+
+    @Test
+    void searchRunsSameNumberOfQueriesForAnyNumberOfFilms() {
+        assertQueryCountDoesNotGrow(() -> filmService.searchFilms("фильм", List.of(SearchBy.TITLE, SearchBy.DIRECTOR)));
+    }
+
+    @Test
+    void commonFilmsRunSameNumberOfQueriesForAnyNumberOfFilms() {
+        assertQueryCountDoesNotGrow(() -> filmService.getCommonFilms(user.getId(), friend.getId()));
+    }
+
+    private void assertQueryCountDoesNotGrow(Supplier<List<Film>> query) {
+        addFilms(3);
+        int smallResult = query.get().size();
+        List<String> smallStatements = recordStatements(query);
+
+        addFilms(30);
+        int largeResult = query.get().size();
+        List<String> largeStatements = recordStatements(query);
+
+        assertThat(largeResult).isGreaterThan(smallResult);
+        assertThat(largeStatements).isEqualTo(smallStatements);
+        assertThat(largeStatements.size()).isLessThanOrEqualTo(MAX_HYDRATION_QUERIES + 2);
+    }
+
+    private List<String> recordStatements(Supplier<List<Film>> query) {
+        statementCounter.reset();
+        query.get();
+        return statementCounter.statements();
+    }
+
+    private void addFilms(int count) {
+        for (int i = 0; i < count; i++) {
+            Film film = new Film();
+            film.setName("Фильм " + i);
+            film.setDescription("Описание");
+            film.setReleaseDate(LocalDate.of(2000 + i % 20, 1, 1));
+            film.setDuration(90);
+            film.setMpa(new MPA(1L, null, null));
+            film.setGenres(Set.of(new Genre(1L, null), new Genre(2L, null)));
+            film.setDirectors(Set.of(new Director(director.getId(), null)));
+
+            Film created = filmService.create(film);
+            filmIds.add(created.getId());
+            filmService.addLike(created.getId(), user.getId());
+            filmService.addLike(created.getId(), friend.getId());
+        }
+    }
+
+    private User newUser(String login) {
+        User user = new User();
+        user.setEmail(login + System.nanoTime() + "@mail.ru");
+        user.setLogin(login);
+        user.setName(login);
+        user.setBirthday(LocalDate.of(1990, 1, 1));
+        return user;
+    }
+
+    @TestConfiguration
+    static class StatementCountingConfig {
+        @Bean
+        StatementCounter statementCounter() {
+            return new StatementCounter();
+        }
+
+        @Bean
+        static BeanPostProcessor statementCountingDataSource() {
+            return new BeanPostProcessor() {
+                @Override
+                public Object postProcessAfterInitialization(Object bean, String beanName) {
+                    return bean instanceof DataSource dataSource ? new CountingDataSource(dataSource) : bean;
+                }
+            };
+        }
+    }
+
+    static class StatementCounter {
+        private static final List<String> STATEMENTS = new CopyOnWriteArrayList<>();
+
+        void reset() {
+            STATEMENTS.clear();
+        }
+
+        List<String> statements() {
+            return List.copyOf(STATEMENTS);
+        }
+    }
+
+    static class CountingDataSource extends DelegatingDataSource {
+        CountingDataSource(DataSource target) {
+            super(target);
+        }
+
+        @Override
+        public Connection getConnection() throws SQLException {
+            return counting(super.getConnection());
+        }
+
+        @Override
+        public Connection getConnection(String username, String password) throws SQLException {
+            return counting(super.getConnection(username, password));
+        }
+
+        private Connection counting(Connection connection) {
+            return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(),
+                    new Class<?>[]{Connection.class}, (proxy, method, args) -> {
+                        String name = method.getName();
+                        if (name.equals("prepareStatement") || name.equals("createStatement")
+                                || name.equals("prepareCall")) {
+                            StatementCounter.STATEMENTS.add(args != null && args.length > 0 ? String.valueOf(args[0]) : name);
+                        }
+
+                        try {
+                            return method.invoke(connection, args);
+                        } catch (InvocationTargetException e) {
+                            throw e.getCause();
+                        }
+                    });
+        }
+    }
+}